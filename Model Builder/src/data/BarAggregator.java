@@ -0,0 +1,147 @@
+package data;
+
+import level0_TechnicalData.TechnicalData;
+import level0_TechnicalData.TimeStamp;
+
+/**
+ * Combines price and volume ticks (PullData) into fixed length periods and appends each
+ * completed period to a TechnicalData object (see TechnicalData.append).
+ *
+ * Periods are aligned to the clock (e.g. 5 minute periods start at 09:30, 09:35, ...) and are
+ * stamped with their start time, the same as the ETFData files.  Tick volume is the day's
+ * running total, so period volume is the change in that total over the period (the first
+ * period of a day counts from 0, so it includes the volume of its first tick).
+ *
+ * @author Ryan Bell
+ */
+public class BarAggregator {
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Class Variables
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	private final TechnicalData mData;		// Data completed periods are appended to
+	private final int mPeriodMinutes;		// Length of each period
+
+	private boolean mOpenPeriod;			// True once a tick has started the current period
+	private long mPeriodTime;				// Start of current period (epoch minutes)
+	private double mOpen, mHigh, mLow, mClose;
+	private long mStartVolume;				// Day volume before current period
+	private long mLastVolume;				// Day volume at last tick
+	private long mDay = Long.MIN_VALUE;		// Epoch day of last tick
+
+	private int mFirstAppended = -1;		// Index of first period this aggregator appended
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Constructor
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	/**
+	 * @param data Data completed periods are appended to
+	 * @param periodMinutes Length of each period in minutes (Variables.NP)
+	 */
+	public BarAggregator(TechnicalData data, int periodMinutes) {
+		mData = data;
+		mPeriodMinutes = periodMinutes;
+	}
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Primary Methods for Class
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	/**
+	 * Add tick.  The current period is appended once a tick arrives for a later period.
+	 * @param epochMinute Time of tick (see TimeStamp)
+	 * @param price Price at tick
+	 * @param dayVolume Total volume traded so far today
+	 */
+	public synchronized void tick(long epochMinute, double price, long dayVolume) {
+
+		long periodTime = Math.floorDiv(epochMinute, mPeriodMinutes) * mPeriodMinutes;
+
+		if (mOpenPeriod && periodTime < mPeriodTime) return;		// Late tick for completed period
+		if (mOpenPeriod && periodTime > mPeriodTime) complete();
+
+
+		// 1. Start new period /////////////////////////////////////////////////////////////////////
+
+
+		if (!mOpenPeriod) {
+
+			long day = TimeStamp.epochDayOf(epochMinute);
+
+			// First period of day counts volume from start of day
+			mStartVolume = day == mDay ? mLastVolume : 0;
+			mDay = day;
+
+			mPeriodTime = periodTime;
+			mOpen = mHigh = mLow = mClose = price;
+			mOpenPeriod = true;
+		}
+
+
+		// 2. Update current period ////////////////////////////////////////////////////////////////
+
+
+		else {
+			if (price > mHigh) mHigh = price;
+			if (price < mLow) mLow = price;
+			mClose = price;
+		}
+
+		mLastVolume = dayVolume;
+	}
+
+
+	/**
+	 * Add tick in PullData temporary file format
+	 * @param timeStamp Time in YYYYMMDDhhmm(ss) format
+	 * @param price Price at tick
+	 * @param dayVolume Total volume traded so far today
+	 */
+	public void tick(String timeStamp, double price, long dayVolume) {
+		tick(TimeStamp.parse(timeStamp), price, dayVolume);
+	}
+
+
+	/** Append current period even if it has not ended (used when data collection stops) */
+	public synchronized void flush() {
+		if (mOpenPeriod) complete();
+	}
+
+
+	/** @return Data completed periods are appended to */
+	public TechnicalData data() {
+		return mData;
+	}
+
+
+	/** @return Index of first period appended by this aggregator (-1 if none) */
+	public synchronized int firstAppended() {
+		return mFirstAppended;
+	}
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Helper Methods
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	/** Append current period to data (skipped if data already has this period) */
+	private void complete() {
+
+		mOpenPeriod = false;
+
+		int size = mData.size();
+		if (size > 0 && mPeriodTime <= mData.time(size - 1)) return;
+
+		mData.append(mPeriodTime, mOpen, mHigh, mLow, mClose, Math.max(0, mLastVolume - mStartVolume));
+		if (mFirstAppended < 0) mFirstAppended = size;
+	}
+}
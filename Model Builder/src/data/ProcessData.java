@@ -7,7 +7,10 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.ArrayList;
 
+import level0_TechnicalData.MarketPanel;
 import level0_TechnicalData.TechnicalData;
+import level0_TechnicalData.TechnicalDataRegistry;
+import model.Catalog;
 import model.Read;
 import model.Variables;
 import model.Write;
@@ -112,6 +115,7 @@ public class ProcessData {
 		// Replace old file with temporary one
 		new File(fileDir + symbol + ".txt").delete();				// Delete old file
 		tempFile.renameTo(new File(fileDir + symbol + ".txt"));		// Rename temporary file (with new data) to deleted directory
+		TechnicalDataRegistry.invalidate(symbol);					// Reload cleaned data on next use
 
 		// File correctly replaced
 		return true;
@@ -215,7 +219,7 @@ public class ProcessData {
 	 * @return Hour value from time stamp
 	 */
 	private static int getHour(String line) {
-		return Integer.parseInt("" + line.charAt(8) + line.charAt(9));
+		return digits(line, 8);
 	}
 
 
@@ -225,7 +229,13 @@ public class ProcessData {
 	 * @return Minute value from time stamp
 	 */
 	private static int getMinute(String line) {
-		return Integer.parseInt("" + line.charAt(10) + line.charAt(11));
+		return digits(line, 10);
+	}
+
+
+	/** @return Two digit number at index of line (no String is created) */
+	private static int digits(String line, int index) {
+		return (line.charAt(index) - '0') * 10 + (line.charAt(index + 1) - '0');
 	}
 
 
@@ -452,134 +462,47 @@ public class ProcessData {
 	private static void matchAllData() {
 
 
-		// 1. Create List of Time Stamps in Final Data Set /////////////////////////////////////////
+		// 1. Find Time Stamps in Final Data Set ///////////////////////////////////////////////////
 
 
-		ArrayList<Long> timestampList = getTimeStampList();
+		MarketPanel panel = MarketPanel.get(Variables.SYMBOLS);
+		long[] common = panel.intersection();
 		System.out.println("MatchData: timestampList Complete");
 		
-		// 2. Remove All Time Stamped Data Not in timestampList ArrayList //////////////////////////
-
-
-		matchTimeStamps(timestampList);
-
-	}
-	
-
-	/** Return ArrayList<String> of time stamps that are in every ETF data file */
-	private static ArrayList<Long> getTimeStampList() {
-
-
-		// 1. Create First List and Necessary Variables ////////////////////////////////////////////
-
-
-		ArrayList<Long> tsList = new ArrayList<Long>();		
-		ArrayList<Long> tempList = new ArrayList<Long>();		
-		TechnicalData data = new TechnicalData(Variables.SYMBOLS[0]);
-
-		for (int i = 0; i < data.size(); i++) tsList.add(longTimeStamp(i, data));
-
-
-		// 2. Cycle Through All Other TechnicalData Lists and Remove All Time Stamps Not In Common /
-
-
-		for (String symbol : Variables.SYMBOLS) {
-
-			if (!symbol.equals(Variables.SYMBOLS[0])) {
-
-				// Build temporary ArrayList
-				data = new TechnicalData(symbol);
-				for (int i = 0; i < data.size(); i++) tempList.add(longTimeStamp(i, data));
-
-				System.out.println(symbol + ": joinList");
-				
-				// If temporary ArrayList does not contain 
-				tsList = joinList(tsList, tempList);
-
-			}
-		}
-
-		return tsList;
-	}
+		// 2. Remove All Time Stamped Data Not in Every Data Set ///////////////////////////////////
 
 
-	/** Return list of values that are in both lists */
-	private static ArrayList<Long> joinList(ArrayList<Long> list0, ArrayList<Long> list1) {
+		matchTimeStamps(panel, common);
 
-		int i0 = 0;
-		int i1 = 0;
-
-		ArrayList<Long> joinList = new ArrayList<Long>();
-
-		// Continue until list0 or list1 are out of values to combine
-		while (i0 < list0.size() && i1 < list1.size()) {
-			
-			// Cycle list0 and list1 indexes to equal or greater values
-			while (i0 < list0.size() && i1 < list1.size() && (long) list0.get(i0) != (long) list1.get(i1)) {
-				
-				while (i0 < list0.size() && i1 < list1.size() && (long) list0.get(i0) < (long) list1.get(i1)) i0++;
-				while (i0 < list0.size() && i1 < list1.size() && (long) list0.get(i0) > (long) list1.get(i1)) i1++;
-				
-			}
-
-			
-			// If list0 and list1 match, add to combined list and increment indexes
-			if (i0 < list0.size() && i1 < list1.size() && (long) list0.get(i0) == (long) list1.get(i1)) {
-				joinList.add(list0.get(i0));
-				i0++;
-				i1++;
-			}
-			
-		}
-
-		return joinList;
 	}
 
 	
-	/** Overwrite all ETF data file to match time input time stamps */
-	private static void matchTimeStamps(ArrayList<Long> tsList) {
+	/** Overwrite all ETF data files with only the rows set in common (see MarketPanel.intersection) */
+	private static void matchTimeStamps(MarketPanel panel, long[] common) {
 
-		for (String symbol : Variables.SYMBOLS) {
+		for (int s = 0; s < panel.symbols(); s++) {
 		
+			String symbol = panel.symbol(s);
 			System.out.println(symbol + ": Match Time Stamp Begin");
 			
-			int index = 0;
-			int dataIndex = 0;
-			TechnicalData data = new TechnicalData(symbol);
+			TechnicalData data = panel.data(s);
 			StringBuilder str = new StringBuilder();
 			
 			// 1. Create StringBuilder that stores all matching data ///////////////////////////////
 			
-			while (index < tsList.size() && dataIndex < data.size()) {
-				
-				// Search through TechnicalData list until tsList.get(index) matches
-				while (dataIndex < data.size() && (long) longTimeStamp(dataIndex, data) != (long) tsList.get(index)) dataIndex++;
-				
-				// Append to file
-				if (data.get(dataIndex) != null && data.get(dataIndex).toString() != null && dataIndex < data.size()) 
-					str.append(data.get(dataIndex).toString() + "\r\n");
-				
-				// Increment tsList index
-				index++;
-			}
+			for (int row = 0; row < panel.length(); row++)
+				if (MarketPanel.isSet(common, row)) str.append(data.get(panel.dataIndex(s, row)).toString() + "\r\n");
 			
 			
 			// 2. Write all data to file ///////////////////////////////////////////////////////////
 			
 			
 			Write.writeToFile(Variables.ETFDATA + symbol+".txt", str.toString(), true);
+			TechnicalDataRegistry.invalidate(symbol);
 			
 			
 		}
 	}
-
-	
-	/** Return Time Stamp in TechnicalData as Integer */
-	private static long longTimeStamp(int index, TechnicalData data) {
-		
-		return Long.parseLong(data.timeStamp(index));
-		
-	}
 	
 
 	////////////////////////////////////////////////////////////////////////////////////////////////
@@ -650,10 +573,13 @@ public class ProcessData {
 		int range = getTimeStampRange(symbols[0], start, end);
 
 		for (String symbol : symbols) {
-			if (getTimeStampRange(symbol, start, end) != range) {
+
+			int symbolRange = getTimeStampRange(symbol, start, end);
+
+			if (symbolRange != range) {
 				System.err.println(symbol + " does not match range");
 		}
-			System.out.println(symbol + ": " +getTimeStampRange(symbol, start, end));
+			System.out.println(symbol + ": " + symbolRange + " (" + getCatalog(symbol).shortDays() + " days with fewer than " + Variables.PIM + " periods)");
 		}
 		
 		System.out.println("Check Complete");
@@ -663,16 +589,35 @@ public class ProcessData {
 	/** Return number of entries between start and end date */
 	private static int getTimeStampRange(String symbol, String start, String end) {
 
-		TechnicalData data = new TechnicalData(symbol);
-
-		int startIndex = data.getIndexByTimeStamp(start);
-		int endIndex = data.getIndexByTimeStamp(end);
+		int startIndex, endIndex;
+
+		// Year ranges are answered from the catalog without loading data
+		if (start.length() == 4 && end.length() == 4) {
+			Catalog.Symbol entry = getCatalog(symbol);
+			startIndex = entry.indexOfYear(Integer.parseInt(start));
+			endIndex = entry.indexOfYear(Integer.parseInt(end));
+		} else {
+			TechnicalData data = TechnicalDataRegistry.get(symbol);
+			startIndex = data.getIndexByTimeStamp(start);
+			endIndex = data.getIndexByTimeStamp(end);
+		}
 
 		if (startIndex > 0 && endIndex > 0) return endIndex - startIndex;
 		else return -1;
 
 	}
 
+
+	/** Return catalog entry of symbol (data is loaded and cataloged only if entry is missing or out of date) */
+	private static Catalog.Symbol getCatalog(String symbol) {
+
+		Catalog.Symbol entry = Catalog.symbol(symbol);
+		if (entry == null) entry = Catalog.putSymbol(TechnicalDataRegistry.get(symbol));
+
+		return entry;
+	}
+
+
 	public static void main(String[] args) throws IOException {
 		// processDataFiles();
 		checkDataSizes("2009", "2016");
@@ -2,8 +2,11 @@ package data;
 
 import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.concurrent.ConcurrentHashMap;
 
-import level0_TechnicalData.WebInputStream;
+import level0_TechnicalData.TechnicalData;
+import level0_TechnicalData.TechnicalDataRegistry;
+import level0_TechnicalData.ResourceReader;
 import model.Read;
 import model.Variables;
 import model.Write;
@@ -28,6 +31,7 @@ public class PullData extends Thread {
 		updateData();
 		
 		// 3. Call wrapper method that parses temporary data files and appends periods to permanent storage files in 5 minute periods (PareTempData)
+		savePeriods();
 		
 	}
 
@@ -46,6 +50,9 @@ public class PullData extends Thread {
 	// List of symbols that thread collects data for
 	public String mSymbol;
 
+	// Combines each symbol's ticks into periods appended to its shared TechnicalData
+	private static final ConcurrentHashMap<String, BarAggregator> mAggregators = new ConcurrentHashMap<String, BarAggregator>();
+
 
 	////////////////////////////////////////////////////////////////////////////////////////////////
 	// Wrapper Methods for Class to Begin ETF Data Collection
@@ -149,7 +156,10 @@ public class PullData extends Thread {
 
 		// Write current stock data for each symbol in array String parameter
 		String page = getPage(symbol);
-		String output = "\r\n" + getTimeLong() + "," + getPrice(page) + "," + getVolume(page);
+		String time = getTimeLong();
+		double price = getPrice(page);
+		int volume = getVolume(page);
+		String output = "\r\n" + time + "," + price + "," + volume;
 
 		// Write stock data to file
 		Write.writeToFile(Variables.TEMP_DATA + symbol + ".txt", output , false);
@@ -157,46 +167,104 @@ public class PullData extends Thread {
 		// Write last update to tracking file to restart thread if ended
 		Write.writeToFile(Variables.TEMP_DATA + symbol + "Time.txt", getTimeLong() , true);
 
+		// Add tick to current period (completed periods are appended to shared data)
+		getAggregator(symbol).tick(time, price, volume);
+
+	}
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Period Methods
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	/** @return Aggregator that appends symbol's periods to its shared TechnicalData */
+	public static BarAggregator getAggregator(String symbol) {
+		return mAggregators.computeIfAbsent(symbol, s -> new BarAggregator(TechnicalDataRegistry.get(s), Variables.NP));
+	}
+
+
+	/** Complete current periods and append all periods collected today to the ETFData text files */
+	public static void savePeriods() {
+
+		for (String symbol : Variables.SYMBOLS) {
+
+			BarAggregator aggregator = mAggregators.get(symbol);
+			if (aggregator == null) continue;
+
+			aggregator.flush();
+
+			TechnicalData data = aggregator.data();
+			int first = aggregator.firstAppended();
+			if (first < 0) continue;
+
+			StringBuilder lines = new StringBuilder();
+
+			for (int i = first; i < data.size(); i++)
+				lines.append("\r\n").append(data.timeStamp(i)).append(',').append(data.open(i)).append(',')
+					.append(data.high(i)).append(',').append(data.low(i)).append(',').append(data.close(i))
+					.append(',').append(data.volumes()[i]);
+
+			Write.writeToFile(Variables.ETFDATA + symbol + ".txt", lines.toString(), false);
+		}
 	}
 
 
 	/**
-	 * Return yahoo page html as a String
+	 * Return start of yahoo page html (up to the price and volume values) as a String.  The page is
+	 * read again up to ResourceReader.ATTEMPTS times if the values cannot be parsed.
 	 * @param symbol Symbol to get data for
-	 * @return Yahoo html as a String
+	 * @return Yahoo html as a String (values may not parse if every attempt failed)
 	 */
 	public static String getPage(String symbol) {
+		return getPage(Variables.YAHOO_Prefix, symbol);
+	}
+
+
+	/**
+	 * getPage from quote pages at quoteURL (e.g. a local stand-in server)
+	 * @param quoteURL URL that symbol's quote page is under (Variables.YAHOO_Prefix)
+	 * @param symbol Symbol to get data for
+	 * @return Yahoo html as a String (values may not parse if every attempt failed)
+	 */
+	static String getPage(String quoteURL, String symbol) {
 
 
 		// 1. Declare return variable //////////////////////////////////////////////////////////////
 
 
 		String page = "";
+		String[] prefixes = {mPrefixPrice, mPrefixVolume};
+		char[] suffixes = {mSufixPrice, mSufixVolume};
 
 
-		// 2. Get page from web ////////////////////////////////////////////////////////////////////
+		for (int attempt = 0; attempt < ResourceReader.ATTEMPTS; attempt++) {
 
 
-		try {
-			page = new WebInputStream("https://finance.yahoo.com/quote/" + symbol).readAll();
-		} 
+			// 2. Get page from web (stops reading once price and volume have arrived) /////////////
 
-		catch (NullPointerException e) {
-			page = getPage(symbol);
-		}
 
+			try {
+				page = ResourceReader.readUntil(quoteURL + symbol, prefixes, suffixes);
+			} 
 
-		// 3. Attempt to parse data to ensure proper value /////////////////////////////////////////
+			catch (IOException e) {
+				System.out.println(symbol + ": " + e.getMessage());
+				continue;
+			}
 
 
-		try {
-			getPrice(page);
-			getVolume(page);
-		} 
+			// 3. Attempt to parse data to ensure proper value /////////////////////////////////////
+
+
+			try {
+				getPrice(page);
+				getVolume(page);
+				break;
+			} 
 
-		// Recall method if error
-		catch (NumberFormatException e) {
-			page = getPage(symbol);
+			// Read again if error
+			catch (NumberFormatException e) { }
 		}
 
 
@@ -0,0 +1,541 @@
+package level0_TechnicalData;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import model.Variables;
+
+/**
+ * Compressed columnar archive of TechnicalData (ETFData/[symbol].barz) for data that is kept on
+ * disk but rarely read.  Periods are split into blocks of BLOCK_ROWS periods, and each block can
+ * be decoded without reading any other block, so archives are decoded in parallel straight into
+ * TechnicalData columns.
+ *
+ * Columns of a block:
+ * 	Time:   Delta-of-delta encoded as runs of equal deltas (one run per session in 5 minute data)
+ * 	Prices: Scaled to integers by the fewest decimal digits (0 -> 9) that give back every price of
+ * 			the block exactly.  Close is stored as the change from the last close, Open as the
+ * 			change from the last close, High and Low as the distance from max / min(Open, Close).
+ * 			Blocks with prices that are not short decimals store raw doubles instead.
+ * 	Volume: Varint
+ * Every integer is a zigzag varint (7 bits per byte), so small values take one byte.
+ *
+ * File layout (little endian):
+ * 	Header (32 bytes): Magic, Version, Symbol (16 bytes), Row Count, Block Count
+ * 	Block directory (16 bytes per block): Row Count, Byte Count, First Time (epoch minutes)
+ * 	Blocks
+ *
+ * @author Ryan Bell
+ */
+public final class BarArchive {
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Class Variables
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	public static final String EXTENSION = ".barz";					// File extension in ETFData folder
+
+	public static final int MAGIC = 0x5A424454;						// "TDBZ" in little endian
+	public static final int VERSION = 1;							// Current file layout version
+	public static final int BLOCK_ROWS = 4096;						// Periods per independently decoded block
+	private static final int HEADER_BYTES = 32;						// Size of header before block directory
+	private static final int ENTRY_BYTES = 16;						// Size of each block directory entry
+	private static final int SYMBOL_BYTES = 16;						// Maximum symbol length stored in header
+
+	private static final int MAX_DIGITS = 9;						// Most decimal digits tried when scaling prices
+	private static final int RAW = 0xFF;							// Scale of block that stores raw doubles
+
+	// Powers of 10 that prices are scaled by
+	private static final double[] POWERS = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9 };
+
+
+	private BarArchive() { }
+
+
+	/** @return Location of symbol's archive in ETFData folder */
+	public static String path(String symbol) {
+		return Variables.ETFDATA + symbol + EXTENSION;
+	}
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Write Archive
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	/**
+	 * Write TechnicalData to archive (replaces existing file)
+	 * @param data Data to write (periods must be in ascending time order)
+	 * @param path Location of file
+	 * @return Size of archive (bytes)
+	 * @throws IOException If file cannot be written
+	 */
+	public static long write(TechnicalData data, String path) throws IOException {
+
+		int rows = data.size();
+		int blocks = (rows + BLOCK_ROWS - 1) / BLOCK_ROWS;
+
+
+		// 1. Encode blocks ////////////////////////////////////////////////////////////////////////
+
+
+		byte[][] encoded = new byte[blocks][];
+		IntStream.range(0, blocks).parallel().forEach(b ->
+				encoded[b] = encodeBlock(data, b * BLOCK_ROWS, Math.min(rows, (b + 1) * BLOCK_ROWS)));
+
+		long bytes = HEADER_BYTES + (long) blocks * ENTRY_BYTES;
+		for (byte[] block : encoded) bytes += block.length;
+
+
+		// 2. Header and block directory ///////////////////////////////////////////////////////////
+
+
+		ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES + blocks * ENTRY_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+		byte[] symbol = data.symbol() == null ? new byte[0] : data.symbol().getBytes(StandardCharsets.US_ASCII);
+
+		header.putInt(MAGIC);
+		header.putInt(VERSION);
+		header.put(symbol, 0, Math.min(symbol.length, SYMBOL_BYTES));
+		header.position(24);
+		header.putInt(rows);
+		header.putInt(blocks);
+
+		for (int b = 0; b < blocks; b++) {
+			header.putInt(Math.min(BLOCK_ROWS, rows - b * BLOCK_ROWS));
+			header.putInt(encoded[b].length);
+			header.putLong(data.time(b * BLOCK_ROWS));
+		}
+
+		header.flip();
+
+
+		// 3. Write to disk ////////////////////////////////////////////////////////////////////////
+
+
+		try (FileChannel channel = FileChannel.open(Paths.get(path),
+				StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+			while (header.hasRemaining()) channel.write(header);
+
+			for (byte[] block : encoded) {
+				ByteBuffer buffer = ByteBuffer.wrap(block);
+				while (buffer.hasRemaining()) channel.write(buffer);
+			}
+		}
+
+		return bytes;
+	}
+
+
+	/** Encode periods from -> to - 1 */
+	private static byte[] encodeBlock(TechnicalData data, int from, int to) {
+
+		Encoder out = new Encoder((to - from) * 12);
+
+
+		// 1. Time (runs of equal deltas) //////////////////////////////////////////////////////////
+
+
+		int runs = 0;
+		for (int i = from + 1; i < to; i++)
+			if (i == from + 1 || data.time(i) - data.time(i - 1) != data.time(i - 1) - data.time(i - 2)) runs++;
+
+		out.putUnsigned(runs);
+
+		for (int i = from + 1; i < to; ) {
+
+			long delta = data.time(i) - data.time(i - 1);
+			int length = 1;
+			while (i + length < to && data.time(i + length) - data.time(i + length - 1) == delta) length++;
+
+			out.putSigned(delta);
+			out.putUnsigned(length);
+			i += length;
+		}
+
+
+		// 2. Prices ///////////////////////////////////////////////////////////////////////////////
+
+
+		int digits = digits(data, from, to);
+		out.putByte(digits);
+
+		if (digits == RAW) {
+
+			for (int i = from; i < to; i++) out.putDouble(data.close(i));
+			for (int i = from; i < to; i++) out.putDouble(data.open(i));
+			for (int i = from; i < to; i++) out.putDouble(data.high(i));
+			for (int i = from; i < to; i++) out.putDouble(data.low(i));
+
+		} else {
+
+			double scale = POWERS[digits];
+
+			long last = 0;
+			for (int i = from; i < to; i++) {
+				long close = Math.round(data.close(i) * scale);
+				out.putSigned(close - last);
+				last = close;
+			}
+
+			last = 0;
+			for (int i = from; i < to; i++) {
+				out.putSigned(Math.round(data.open(i) * scale) - last);
+				last = Math.round(data.close(i) * scale);
+			}
+
+			for (int i = from; i < to; i++)
+				out.putSigned(Math.round(data.high(i) * scale) - Math.max(Math.round(data.open(i) * scale), Math.round(data.close(i) * scale)));
+
+			for (int i = from; i < to; i++)
+				out.putSigned(Math.min(Math.round(data.open(i) * scale), Math.round(data.close(i) * scale)) - Math.round(data.low(i) * scale));
+		}
+
+
+		// 3. Volume ///////////////////////////////////////////////////////////////////////////////
+
+
+		long[] volume = data.volumes();
+		for (int i = from; i < to; i++) out.putSigned(volume[i]);
+
+		return out.toArray();
+	}
+
+
+	/** @return Fewest decimal digits that give back every price of block exactly (RAW if none do) */
+	private static int digits(TechnicalData data, int from, int to) {
+
+		for (int digits = 0; digits <= MAX_DIGITS; digits++) {
+
+			double scale = POWERS[digits];
+			boolean exact = true;
+
+			for (int i = from; i < to && exact; i++)
+				exact = isExact(data.open(i), scale) && isExact(data.high(i), scale) &&
+						isExact(data.low(i), scale) && isExact(data.close(i), scale);
+
+			if (exact) return digits;
+		}
+
+		return RAW;
+	}
+
+
+	/** @return True if price * scale rounded to an integer decodes back to the same double */
+	private static boolean isExact(double price, double scale) {
+
+		double scaled = price * scale;
+		if (!(Math.abs(scaled) < 1L << 53)) return false;
+
+		return Double.doubleToLongBits(Math.round(scaled) / scale) == Double.doubleToLongBits(price);
+	}
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Read Archive
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	/**
+	 * Decode every block of archive into a new TechnicalData object
+	 * @param path Location of file
+	 * @return TechnicalData with all periods in file
+	 * @throws IOException If file is missing or is not an archive
+	 */
+	public static TechnicalData read(String path) throws IOException {
+
+		byte[] file = Files.readAllBytes(Paths.get(path));
+		ByteBuffer header = ByteBuffer.wrap(file).order(ByteOrder.LITTLE_ENDIAN);
+
+		if (file.length < HEADER_BYTES || header.getInt(0) != MAGIC) throw new IOException(path + " is not a bar archive");
+		if (header.getInt(4) != VERSION) throw new IOException(path + " has unsupported version " + header.getInt(4));
+
+		int length = 0;
+		while (length < SYMBOL_BYTES && file[8 + length] != 0) length++;
+
+		String symbol = new String(file, 8, length, StandardCharsets.US_ASCII);
+		int rows = header.getInt(24);
+		int blocks = header.getInt(28);
+
+		if (file.length < HEADER_BYTES + (long) blocks * ENTRY_BYTES) throw new IOException(path + " is truncated");
+
+
+		// 1. Locate blocks from directory /////////////////////////////////////////////////////////
+
+
+		int[] first = new int[blocks];			// Index of first period in each block
+		int[] offset = new int[blocks];			// Byte offset of each block
+		int[] count = new int[blocks];			// Periods in each block
+
+		int row = 0;
+		long position = HEADER_BYTES + (long) blocks * ENTRY_BYTES;
+
+		for (int b = 0; b < blocks; b++) {
+
+			int entry = HEADER_BYTES + b * ENTRY_BYTES;
+
+			first[b] = row;
+			offset[b] = (int) position;
+			count[b] = header.getInt(entry);
+
+			row += count[b];
+			position += header.getInt(entry + 4);
+		}
+
+		if (row != rows || position > file.length) throw new IOException(path + " is truncated");
+
+
+		// 2. Decode blocks into columns ///////////////////////////////////////////////////////////
+
+
+		long[] time     = new long[rows];
+		double[] open   = new double[rows];
+		double[] high   = new double[rows];
+		double[] low    = new double[rows];
+		double[] close  = new double[rows];
+		long[] volume   = new long[rows];
+
+		try {
+			IntStream.range(0, blocks).parallel().forEach(b ->
+					decodeBlock(new Decoder(file, offset[b]), header.getLong(HEADER_BYTES + b * ENTRY_BYTES + 8),
+							first[b], first[b] + count[b], time, open, high, low, close, volume));
+		} catch (ArrayIndexOutOfBoundsException e) {
+			throw new IOException(path + " is corrupt");
+		}
+
+		return new TechnicalData(symbol, time, open, high, low, close, volume, rows);
+	}
+
+
+	/** Decode block into periods from -> to - 1 of columns */
+	private static void decodeBlock(Decoder in, long firstTime, int from, int to,
+			long[] time, double[] open, double[] high, double[] low, double[] close, long[] volume) {
+
+
+		// 1. Time /////////////////////////////////////////////////////////////////////////////////
+
+
+		time[from] = firstTime;
+
+		int runs = (int) in.getUnsigned();
+		int i = from + 1;
+
+		for (int r = 0; r < runs; r++) {
+
+			long delta = in.getSigned();
+			int length = (int) in.getUnsigned();
+
+			for (int end = i + length; i < end; i++) time[i] = time[i - 1] + delta;
+		}
+
+
+		// 2. Prices ///////////////////////////////////////////////////////////////////////////////
+
+
+		int digits = in.getByte();
+
+		if (digits == RAW) {
+
+			for (i = from; i < to; i++) close[i] = in.getDouble();
+			for (i = from; i < to; i++) open[i] = in.getDouble();
+			for (i = from; i < to; i++) high[i] = in.getDouble();
+			for (i = from; i < to; i++) low[i] = in.getDouble();
+
+		} else {
+
+			double scale = POWERS[digits];
+			long[] scaledClose = new long[to - from];
+			long[] scaledOpen = new long[to - from];
+
+			long last = 0;
+			for (i = from; i < to; i++) {
+				last += in.getSigned();
+				scaledClose[i - from] = last;
+				close[i] = last / scale;
+			}
+
+			last = 0;
+			for (i = from; i < to; i++) {
+				scaledOpen[i - from] = last + in.getSigned();
+				open[i] = scaledOpen[i - from] / scale;
+				last = scaledClose[i - from];
+			}
+
+			for (i = from; i < to; i++) high[i] = (Math.max(scaledOpen[i - from], scaledClose[i - from]) + in.getSigned()) / scale;
+			for (i = from; i < to; i++) low[i] = (Math.min(scaledOpen[i - from], scaledClose[i - from]) - in.getSigned()) / scale;
+		}
+
+
+		// 3. Volume ///////////////////////////////////////////////////////////////////////////////
+
+
+		for (i = from; i < to; i++) volume[i] = in.getSigned();
+	}
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Import ETFData Text Files
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	/**
+	 * Convert ETFData/[symbol].txt to ETFData/[symbol].barz
+	 * @param symbol Stock or ETF identifier
+	 * @return Data that was written
+	 * @throws IOException If either file cannot be read or written
+	 */
+	public static TechnicalData importText(String symbol) throws IOException {
+
+		TechnicalData data = TechnicalData.getTextFile(symbol);
+		write(data, path(symbol));
+		return data;
+	}
+
+
+	/** @return True if symbol has an archive in ETFData folder */
+	public static boolean exists(String symbol) {
+		return new File(path(symbol)).exists();
+	}
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Varint Encoding
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	/** Growable byte array that integers are appended to */
+	private static final class Encoder {
+
+		private byte[] mBytes;
+		private int mSize;
+
+
+		Encoder(int capacity) {
+			mBytes = new byte[Math.max(16, capacity)];
+		}
+
+
+		void putByte(int value) {
+			if (mSize == mBytes.length) mBytes = Arrays.copyOf(mBytes, mSize * 2);
+			mBytes[mSize++] = (byte) value;
+		}
+
+
+		/** Zigzag varint (small negative and positive values take one byte) */
+		void putSigned(long value) {
+			putUnsigned((value << 1) ^ (value >> 63));
+		}
+
+
+		/** Varint, 7 bits per byte with the high bit set on every byte except the last */
+		void putUnsigned(long value) {
+
+			while ((value & ~0x7FL) != 0) {
+				putByte((int) ((value & 0x7F) | 0x80));
+				value >>>= 7;
+			}
+
+			putByte((int) value);
+		}
+
+
+		void putDouble(double value) {
+			long bits = Double.doubleToRawLongBits(value);
+			for (int b = 0; b < 8; b++) putByte((int) (bits >>> (b << 3)));
+		}
+
+
+		byte[] toArray() {
+			return Arrays.copyOf(mBytes, mSize);
+		}
+	}
+
+
+	/** Reads integers written by Encoder from a byte array */
+	private static final class Decoder {
+
+		private final byte[] mBytes;
+		private int mPosition;
+
+
+		Decoder(byte[] bytes, int position) {
+			mBytes = bytes;
+			mPosition = position;
+		}
+
+
+		int getByte() {
+			return mBytes[mPosition++] & 0xFF;
+		}
+
+
+		long getSigned() {
+			long value = getUnsigned();
+			return (value >>> 1) ^ -(value & 1);
+		}
+
+
+		long getUnsigned() {
+
+			long value = 0;
+			int shift = 0;
+			byte b;
+
+			do {
+				b = mBytes[mPosition++];
+				value |= (long) (b & 0x7F) << shift;
+				shift += 7;
+			} while (b < 0);
+
+			return value;
+		}
+
+
+		double getDouble() {
+			long bits = 0;
+			for (int b = 0; b < 8; b++) bits |= (long) getByte() << (b << 3);
+			return Double.longBitsToDouble(bits);
+		}
+	}
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Testing
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	public static void main(String[] args) throws IOException {
+
+		// Archive all ETFData text files and compare size and read time with the text files
+		for (String symbol : Variables.SYMBOLS2) {
+
+			File text = new File(Variables.ETFDATA + symbol + ".txt");
+			if (!text.exists()) continue;
+
+			long time = System.nanoTime();
+			TechnicalData data = TechnicalData.getTextFile(symbol);
+			long parse = System.nanoTime() - time;
+
+			long bytes = write(data, path(symbol));
+
+			time = System.nanoTime();
+			read(path(symbol));
+			long decode = System.nanoTime() - time;
+
+			System.out.println(symbol + ": " + data.size() + " periods, " + (text.length() >> 10) + " KB -> " +
+					(bytes >> 10) + " KB (" + String.format("%.1f", (double) text.length() / bytes) + "x), read " +
+					parse / 1000000 + " ms -> " + decode / 1000000 + " ms");
+		}
+	}
+}
@@ -0,0 +1,291 @@
+package level0_TechnicalData;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import model.Variables;
+
+/**
+ * Fixed-width binary storage of TechnicalData (ETFData/[symbol].bars).  Opening a file reads only
+ * the header, and columns are memory mapped when read, so loading copies whole columns without
+ * parsing any text.  The ETFData text files are only used to import and export data.
+ *
+ * Offsets are long, and each mapping covers at most MAX_MAP_ROWS rows of one column, so files
+ * larger than 2 GB (about 44 million rows) can be read in pieces (see map).
+ *
+ * File layout (little endian):
+ * 	Header (64 bytes): Magic, Version, Symbol (16 bytes), Bar Size (minutes), Row Count,
+ * 					   First Time Stamp, Last Time Stamp (epoch minutes), Reserved
+ * 	Columns (row count values each): Time (long), Open, High, Low, Close (double), Volume (long)
+ *
+ * @author Ryan Bell
+ */
+public final class BarFile {
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Class Variables
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	public static final String EXTENSION = ".bars";					// File extension in ETFData folder
+
+	public static final int MAGIC = 0x46424454;						// "TDBF" in little endian
+	public static final int VERSION = 1;							// Current file layout version
+	public static final int HEADER_BYTES = 64;						// Size of header before columns
+	public static final int ROW_BYTES = 48;							// Bytes used by one period across all columns
+	public static final int MAX_MAP_ROWS = 1 << 27;					// Most rows of a column mapped at once (1 GB)
+	private static final int SYMBOL_BYTES = 16;						// Maximum symbol length stored in header
+	private static final int WRITE_ROWS = 1 << 16;					// Rows of a column written at once
+
+	private final String mPath;					// Location of file
+	private final String mSymbol;				// Symbol stored in header
+	private final int mBarSize;					// Minutes per bar
+	private final int mRows;					// Number of periods in file
+	private final long mFirstTime;				// Time stamp of first period (epoch minutes)
+	private final long mLastTime;				// Time stamp of last period (epoch minutes)
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Open Existing File
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	/** Read header (buffer holds first HEADER_BYTES of file, or the whole file if shorter) */
+	private BarFile(ByteBuffer buffer, long fileBytes, String path) throws IOException {
+
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+		if (buffer.limit() < HEADER_BYTES || buffer.getInt(0) != MAGIC) throw new IOException(path + " is not a bar file");
+		if (buffer.getInt(4) != VERSION) throw new IOException(path + " has unsupported version " + buffer.getInt(4));
+
+		byte[] symbol = new byte[SYMBOL_BYTES];
+		buffer.position(8);
+		buffer.get(symbol);
+
+		int length = 0;
+		while (length < SYMBOL_BYTES && symbol[length] != 0) length++;
+
+		mPath      = path;
+		mSymbol    = new String(symbol, 0, length, StandardCharsets.US_ASCII);
+		mBarSize   = buffer.getInt(24);
+		mRows      = buffer.getInt(28);
+		mFirstTime = buffer.getLong(32);
+		mLastTime  = buffer.getLong(40);
+
+		if (fileBytes < HEADER_BYTES + (long) mRows * ROW_BYTES) throw new IOException(path + " is truncated");
+	}
+
+
+	/**
+	 * Open bar file.  Only the header is read.
+	 * @param path Location of file
+	 * @return Opened bar file
+	 * @throws IOException If file is missing or is not a bar file
+	 */
+	public static BarFile open(String path) throws IOException {
+
+		try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+
+			ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+			while (header.hasRemaining() && channel.read(header) >= 0);
+			header.flip();
+
+			return new BarFile(header, channel.size(), path);
+		}
+	}
+
+
+	/** @return Location of symbol's bar file in ETFData folder */
+	public static String path(String symbol) {
+		return Variables.ETFDATA + symbol + EXTENSION;
+	}
+
+
+	// Header values
+	public String symbol()   { return mSymbol;    }
+	public int barSize()     { return mBarSize;   }
+	public int rows()        { return mRows;      }
+	public long firstTime()  { return mFirstTime; }
+	public long lastTime()   { return mLastTime;  }
+
+
+	/** @return Byte offset of column in file (0 = time, 1 = open, ... 5 = volume) */
+	long columnOffset(int column) {
+		return HEADER_BYTES + (long) column * 8 * mRows;
+	}
+
+
+	/**
+	 * Memory map rows of one column (read only, the mapping stays valid after the file is closed)
+	 * @param column Column to map (0 = time, 1 = open, ... 5 = volume)
+	 * @param row First row to map
+	 * @param rows Number of rows to map (at most MAX_MAP_ROWS)
+	 * @return Little endian buffer of the rows
+	 * @throws IOException If file cannot be read
+	 * @throws IllegalArgumentException If rows are not in file or more than MAX_MAP_ROWS are asked for
+	 */
+	ByteBuffer map(int column, long row, int rows) throws IOException {
+
+		if (row < 0 || rows < 0 || rows > MAX_MAP_ROWS || row + rows > mRows)
+			throw new IllegalArgumentException(mPath + ": rows " + row + " + " + rows + " (file has " + mRows + ")");
+
+		try (FileChannel channel = FileChannel.open(Paths.get(mPath), StandardOpenOption.READ)) {
+			long offset = columnOffset(column) + row * 8;
+			return channel.map(FileChannel.MapMode.READ_ONLY, offset, rows * 8L).order(ByteOrder.LITTLE_ENDIAN);
+		}
+	}
+
+
+	/**
+	 * Copy columns into new TechnicalData object.  The columns are mapped (see OffHeapBars.map),
+	 * copied a mapping at a time, and unmapped again before returning.
+	 * @return TechnicalData with all periods in file
+	 * @throws IOException If file cannot be read
+	 */
+	public TechnicalData load() throws IOException {
+
+		try (OffHeapBars bars = OffHeapBars.map(this)) {
+			return bars.copy(0, mRows - 1);
+		}
+	}
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Write File
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	/**
+	 * Write TechnicalData to bar file (replaces existing file)
+	 * @param data Data to write
+	 * @param path Location of file
+	 * @throws IOException If file cannot be written
+	 */
+	public static void write(TechnicalData data, String path) throws IOException {
+
+		int rows = data.size();
+		ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+
+		// 1. Header ///////////////////////////////////////////////////////////////////////////////
+
+
+		byte[] symbol = data.symbol() == null ? new byte[0] : data.symbol().getBytes(StandardCharsets.US_ASCII);
+
+		header.putInt(MAGIC);
+		header.putInt(VERSION);
+		header.put(symbol, 0, Math.min(symbol.length, SYMBOL_BYTES));
+		header.position(24);
+		header.putInt(Variables.NP);
+		header.putInt(rows);
+		header.putLong(rows > 0 ? data.time(0) : 0L);
+		header.putLong(rows > 0 ? data.time(rows - 1) : 0L);
+		header.clear();
+
+
+		// 2. Write header and columns to disk (WRITE_ROWS rows at a time) /////////////////////////
+
+
+		ByteBuffer buffer = ByteBuffer.allocate(WRITE_ROWS * 8).order(ByteOrder.LITTLE_ENDIAN);
+
+		try (FileChannel channel = FileChannel.open(Paths.get(path),
+				StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+			while (header.hasRemaining()) channel.write(header);
+
+			for (int column = 0; column < 6; column++) {
+				for (int row = 0; row < rows; row += WRITE_ROWS) {
+
+					int count = Math.min(WRITE_ROWS, rows - row);
+					buffer.clear();
+
+					switch (column) {
+					case 0:  buffer.asLongBuffer().put(data.times(), row, count);    break;
+					case 1:  buffer.asDoubleBuffer().put(data.opens(), row, count);  break;
+					case 2:  buffer.asDoubleBuffer().put(data.highs(), row, count);  break;
+					case 3:  buffer.asDoubleBuffer().put(data.lows(), row, count);   break;
+					case 4:  buffer.asDoubleBuffer().put(data.closes(), row, count); break;
+					default: buffer.asLongBuffer().put(data.volumes(), row, count);  break;
+					}
+
+					buffer.limit(count * 8);
+					while (buffer.hasRemaining()) channel.write(buffer);
+				}
+			}
+		}
+	}
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Import and Export ETFData Text Files
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	/**
+	 * Convert ETFData/[symbol].txt to ETFData/[symbol].bars
+	 * @param symbol Stock or ETF identifier
+	 * @return Data that was written
+	 * @throws IOException If either file cannot be read or written
+	 */
+	public static TechnicalData importText(String symbol) throws IOException {
+
+		TechnicalData data = TechnicalData.getTextFile(symbol);
+		write(data, path(symbol));
+		return data;
+	}
+
+
+	/**
+	 * Write data in ETFData text format ([YYYYMMDDhhmm],[Open],[High],[Low],[Close],[Volume])
+	 * @param data Data to write
+	 * @param path Location of text file
+	 * @throws IOException If file cannot be written
+	 */
+	public static void exportText(TechnicalData data, String path) throws IOException {
+
+		try (BufferedWriter writer = new BufferedWriter(new FileWriter(path))) {
+
+			for (int i = 0; i < data.size(); i++) {
+				writer.write(
+						data.timeStamp(i) + "," + data.open(i) + "," + data.high(i) + "," +
+						data.low(i) + "," + data.close(i) + "," + data.volumes()[i]);
+				writer.write("\r\n");
+			}
+		}
+	}
+
+
+	/** @return True if bar file is missing or older than the ETFData text file */
+	public static boolean isStale(String symbol) {
+
+		File bars = new File(path(symbol));
+		File text = new File(Variables.ETFDATA + symbol + ".txt");
+
+		return !bars.exists() || (text.exists() && text.lastModified() > bars.lastModified());
+	}
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Testing
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	public static void main(String[] args) throws IOException {
+
+		// Convert all ETFData text files to bar files
+		for (String symbol : Variables.SYMBOLS2) {
+			if (new File(Variables.ETFDATA + symbol + ".txt").exists()) {
+				System.out.println(symbol + ": " + importText(symbol).size() + " periods");
+			}
+		}
+	}
+}
@@ -0,0 +1,336 @@
+package level0_TechnicalData;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Parses ETFData text files ([YYYYMMDDhhmm],[Open],[High],[Low],[Close],[Volume]) directly from
+ * bytes into TechnicalData columns.  No String is created for a well formed line.  Large inputs
+ * are split into newline aligned chunks that are parsed in parallel on the common ForkJoin pool.
+ *
+ * Prices with up to 15 significant digits are converted exactly as Double.parseDouble would.  Any
+ * line the fast path does not recognize (exponents, extra spaces, missing fields, etc.) is decoded
+ * and handed to TechnicalData.parseLine, so unusual lines behave exactly as they always have.
+ *
+ * @author Ryan Bell
+ */
+public final class BarParser {
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Class Variables
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	private static final int CHUNK_BYTES = 1 << 20;		// Inputs larger than this are parsed in parallel
+	private static final int LINE_BYTES = 48;			// Approximate bytes per line (sizes chunk columns)
+	private static final int MAX_DIGITS = 15;			// Significant digits that are always exact as a double
+
+	// Powers of 10 that are exactly representable as a double
+	private static final double[] POWERS = {
+			1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+			1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+
+	private BarParser() { }
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Primary Methods for Class
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	/**
+	 * Read text file into memory and parse it.  The file is read with one channel read rather than
+	 * mapped, so it can be renamed or replaced (ProcessData) as soon as this method returns.
+	 * @param symbol Stock or ETF identifier
+	 * @param path Location of text file
+	 * @return Parsed TechnicalData (null if file does not exist)
+	 * @throws IOException If file cannot be read
+	 */
+	public static TechnicalData parseFile(String symbol, String path) throws IOException {
+
+		if (!new File(path).isFile()) return null;
+
+		try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE) throw new IOException(path + " is too large to parse");
+
+			ByteBuffer buffer = ByteBuffer.allocate((int) size);
+			while (buffer.hasRemaining() && channel.read(buffer) >= 0);
+			buffer.flip();
+
+			return parse(symbol, buffer);
+		}
+	}
+
+
+	/**
+	 * Parse every line between buffer's position and limit (buffer itself is not modified)
+	 * @param symbol Stock or ETF identifier
+	 * @param buffer Text file contents (heap, direct, or mapped)
+	 * @return Parsed TechnicalData
+	 */
+	public static TechnicalData parse(String symbol, ByteBuffer buffer) {
+
+		int start = buffer.position();
+		int end = buffer.limit();
+
+		if (end - start <= CHUNK_BYTES) {
+			TechnicalData data = new Chunk(symbol, buffer, start, end).compute();
+			data.trim();
+			return data;
+		}
+
+
+		// 1. Split input into newline aligned chunks //////////////////////////////////////////////
+
+
+		ArrayList<Chunk> chunks = new ArrayList<Chunk>();
+
+		for (int from = start; from < end; ) {
+
+			int to = Math.min(end, from + CHUNK_BYTES);
+			while (to < end && buffer.get(to - 1) != '\n') to++;		// Extend to end of line
+
+			chunks.add(new Chunk(symbol, buffer, from, to));
+			from = to;
+		}
+
+
+		// 2. Parse chunks in parallel and join columns in file order //////////////////////////////
+
+
+		ForkJoinPool.commonPool().invoke(new RecursiveTask<Void>() {
+			private static final long serialVersionUID = 1L;
+			@Override protected Void compute() { invokeAll(chunks); return null; }
+		});
+
+		return join(symbol, chunks);
+	}
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Chunk Parsing
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	/** Parses lines in [start, end) of buffer into its own columns */
+	private static final class Chunk extends RecursiveTask<TechnicalData> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final String mSymbol;
+		private final ByteBuffer mBuffer;
+		private final int mStart;
+		private final int mEnd;
+
+		private double mValue;			// Last number read by readNumber
+		private int mNext;				// Index after last number read by readNumber
+
+
+		Chunk(String symbol, ByteBuffer buffer, int start, int end) {
+			mSymbol = symbol;
+			mBuffer = buffer;
+			mStart = start;
+			mEnd = end;
+		}
+
+
+		@Override
+		protected TechnicalData compute() {
+
+			TechnicalData data = new TechnicalData(mSymbol, (mEnd - mStart) / LINE_BYTES + 1);
+
+			int lineStart = mStart;
+
+			while (lineStart < mEnd) {
+
+				// Find end of line (exclusive of "\n" and "\r\n")
+				int next = lineStart;
+				while (next < mEnd && mBuffer.get(next) != '\n') next++;
+
+				int lineEnd = next;
+				if (lineEnd > lineStart && mBuffer.get(lineEnd - 1) == '\r') lineEnd--;
+
+				if (!parseLine(data, lineStart, lineEnd)) {
+					TechnicalNode node = TechnicalData.parseLine(decode(lineStart, lineEnd));
+					if (node != null) data.add(node);
+				}
+
+				lineStart = next + 1;
+			}
+
+			return data;
+		}
+
+
+		/**
+		 * Parse well formed line into columns
+		 * @return False if line is not in the expected format (nothing is added)
+		 */
+		private boolean parseLine(TechnicalData data, int start, int end) {
+
+
+			// 1. Time stamp (YYYYMMDDhhmm,) ///////////////////////////////////////////////////////
+
+
+			if (end - start < 13 || mBuffer.get(start + 12) != ',') return false;
+
+			long stamp = 0;
+
+			for (int i = start; i < start + 12; i++) {
+				int digit = mBuffer.get(i) - '0';
+				if (digit < 0 || digit > 9) return false;
+				stamp = stamp * 10 + digit;
+			}
+
+			long time = TimeStamp.toEpochMinute(
+					(int) (stamp / 100000000L), (int) (stamp / 1000000 % 100), (int) (stamp / 10000 % 100),
+					(int) (stamp / 100 % 100), (int) (stamp % 100));
+
+
+			// 2. Prices ///////////////////////////////////////////////////////////////////////////
+
+
+			if (!readNumber(start + 13, end, ',')) return false;
+			double open = mValue;
+			if (!readNumber(mNext, end, ',')) return false;
+			double high = mValue;
+			if (!readNumber(mNext, end, ',')) return false;
+			double low = mValue;
+			if (!readNumber(mNext, end, ',')) return false;
+			double close = mValue;
+
+
+			// 3. Volume (stored as int by TechnicalNode, so larger values use the slow path) //////
+
+
+			int i = mNext;
+			boolean negative = i < end && mBuffer.get(i) == '-';
+			if (negative) i++;
+			if (i >= end) return false;
+
+			long volume = 0;
+
+			for (; i < end; i++) {
+				int digit = mBuffer.get(i) - '0';
+				if (digit < 0 || digit > 9 || volume > Integer.MAX_VALUE) return false;
+				volume = volume * 10 + digit;
+			}
+
+			if (negative) volume = -volume;
+			if (volume > Integer.MAX_VALUE || volume < Integer.MIN_VALUE) return false;
+
+			data.add(time, open, high, low, close, volume);
+			return true;
+		}
+
+
+		/**
+		 * Read decimal number ([-]digits[.digits]) beginning at start that is followed by separator.
+		 * Value is stored in mValue and the index after the separator in mNext.
+		 * @return False if number is not in the expected format or has too many digits to be exact
+		 */
+		private boolean readNumber(int start, int end, char separator) {
+
+			int i = start;
+			boolean negative = i < end && mBuffer.get(i) == '-';
+			if (negative) i++;
+
+			long mantissa = 0;
+			int digits = 0;			// Significant digits in mantissa
+			int decimals = 0;		// Digits after decimal point
+			boolean point = false;
+			boolean any = false;
+
+			for (; i < end; i++) {
+
+				byte b = mBuffer.get(i);
+
+				if (b == separator) break;
+
+				if (b == '.' && !point) {
+					point = true;
+					continue;
+				}
+
+				int digit = b - '0';
+				if (digit < 0 || digit > 9) return false;
+
+				any = true;
+				if (mantissa != 0 || digit != 0) digits++;
+				if (digits > MAX_DIGITS) return false;
+
+				mantissa = mantissa * 10 + digit;
+				if (point) decimals++;
+			}
+
+			if (i >= end || !any || decimals >= POWERS.length) return false;
+
+			// Both values are exact doubles, so one division is correctly rounded (same as parseDouble)
+			double value = decimals == 0 ? mantissa : mantissa / POWERS[decimals];
+			mValue = negative ? -value : value;
+			mNext = i + 1;
+
+			return true;
+		}
+
+
+		/** @return Bytes in [start, end) as a String */
+		private String decode(int start, int end) {
+
+			byte[] bytes = new byte[end - start];
+			for (int i = 0; i < bytes.length; i++) bytes[i] = mBuffer.get(start + i);
+			return new String(bytes, StandardCharsets.ISO_8859_1);
+		}
+	}
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Helper Methods
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	/** Copy columns of every chunk (in order) into one TechnicalData object */
+	private static TechnicalData join(String symbol, ArrayList<Chunk> chunks) {
+
+		int size = 0;
+		for (Chunk chunk : chunks) size += chunk.join().size();
+
+		long[] time    = new long[size];
+		double[] open  = new double[size];
+		double[] high  = new double[size];
+		double[] low   = new double[size];
+		double[] close = new double[size];
+		long[] volume  = new long[size];
+
+		int offset = 0;
+
+		for (Chunk chunk : chunks) {
+
+			TechnicalData part = chunk.join();
+			int length = part.size();
+
+			System.arraycopy(part.times(),   0, time,   offset, length);
+			System.arraycopy(part.opens(),   0, open,   offset, length);
+			System.arraycopy(part.highs(),   0, high,   offset, length);
+			System.arraycopy(part.lows(),    0, low,    offset, length);
+			System.arraycopy(part.closes(),  0, close,  offset, length);
+			System.arraycopy(part.volumes(), 0, volume, offset, length);
+
+			offset += length;
+		}
+
+		return new TechnicalData(symbol, time, open, high, low, close, volume, size);
+	}
+}
@@ -0,0 +1,237 @@
+package level0_TechnicalData;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+
+import model.Variables;
+
+/**
+ * Bar files of a symbol split into one partition per year (ETFData/[symbol]/[YYYY].bars, see
+ * BarFile) with a partition index (ETFData/[symbol]/index.txt).  A (start, end) request opens
+ * only the partitions that overlap the range plus the earlier partitions needed for the lookback,
+ * so load time and heap grow with the window instead of the full history.
+ *
+ * Index file lines: [Year],[Row Count],[First Time Stamp],[Last Time Stamp] (YYYYMMDDhhmm)
+ *
+ * @author Ryan Bell
+ */
+public final class BarPartitions {
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Class Variables
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	public static final String INDEX = "index.txt";		// Partition index in symbol's folder
+
+	private final String mSymbol;						// Stock or ETF identifier
+	private final int[] mYear;							// Year of each partition (ascending)
+	private final int[] mRows;							// Number of periods in each partition
+
+
+	private BarPartitions(String symbol, int[] year, int[] rows) {
+		mSymbol = symbol;
+		mYear = year;
+		mRows = rows;
+	}
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Open Existing Partitions
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	/**
+	 * Read partition index of symbol
+	 * @param symbol Stock or ETF identifier
+	 * @return Partitions of symbol
+	 * @throws IOException If index is missing or cannot be read
+	 */
+	public static BarPartitions open(String symbol) throws IOException {
+
+		ArrayList<int[]> entries = new ArrayList<int[]>();
+
+		try (BufferedReader reader = new BufferedReader(new FileReader(directory(symbol) + INDEX))) {
+
+			String line;
+
+			while ((line = reader.readLine()) != null) {
+				if (line.isEmpty()) continue;
+				String[] values = line.split(",");
+				entries.add(new int[] {Integer.parseInt(values[0]), Integer.parseInt(values[1])});
+			}
+		} catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+			throw new IOException(directory(symbol) + INDEX + " is not a partition index");
+		}
+
+		int[] year = new int[entries.size()];
+		int[] rows = new int[entries.size()];
+
+		for (int p = 0; p < year.length; p++) {
+			year[p] = entries.get(p)[0];
+			rows[p] = entries.get(p)[1];
+		}
+
+		return new BarPartitions(symbol, year, rows);
+	}
+
+
+	/** @return Folder that holds symbol's partitions */
+	public static String directory(String symbol) {
+		return Variables.ETFDATA + symbol + "/";
+	}
+
+
+	/** @return Location of partition file for year */
+	public static String path(String symbol, int year) {
+		return directory(symbol) + year + BarFile.EXTENSION;
+	}
+
+
+	/** @return True if partitions are missing or older than the symbol's bar or text file */
+	public static boolean isStale(String symbol) {
+
+		File index = new File(directory(symbol) + INDEX);
+		File bars = new File(BarFile.path(symbol));
+		File text = new File(Variables.ETFDATA + symbol + ".txt");
+
+		return !index.exists() ||
+				(bars.exists() && bars.lastModified() > index.lastModified()) ||
+				(text.exists() && text.lastModified() > index.lastModified());
+	}
+
+
+	// Partition index values
+	public int partitions()     { return mYear.length; }
+	public int year(int p)      { return mYear[p];     }
+	public int rows(int p)      { return mRows[p];     }
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Load Range
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	/**
+	 * Load partitions that cover start -> end and at least lookback periods before start
+	 * @param start Time stamp of first period in YYYYMMDDhhmm format (can be shortened to YYYY)
+	 * @param end Time stamp of last period in YYYYMMDDhhmm format (can be shortened to YYYY)
+	 * @param lookback Periods before start that will be read
+	 * @return TechnicalData of loaded partitions (indexes start at the first loaded period, and
+	 *         offset() is the number of periods in the partitions before it)
+	 * @throws IOException If a partition cannot be read
+	 */
+	public TechnicalData load(String start, String end, int lookback) throws IOException {
+
+		int startYear = Integer.parseInt(start.substring(0, 4));
+		int endYear = Integer.parseInt(end.substring(0, 4));
+
+
+		// 1. Select partitions ////////////////////////////////////////////////////////////////////
+
+
+		// First partition in range, then earlier partitions until they cover lookback
+		int first = 0;
+		while (first < mYear.length && mYear[first] < startYear) first++;
+
+		int covered = 0;
+		while (first > 0 && covered < lookback) covered += mRows[--first];
+
+		int last = first;
+		while (last + 1 < mYear.length && mYear[last + 1] <= Math.max(startYear, endYear)) last++;
+
+
+		// 2. Load and join partitions /////////////////////////////////////////////////////////////
+
+
+		int rows = 0;
+		for (int p = first; p <= last && p < mYear.length; p++) rows += mRows[p];
+
+		int offset = 0;
+		for (int p = 0; p < first; p++) offset += mRows[p];
+
+		TechnicalData data = new TechnicalData(mSymbol, rows);
+		data.setOffset(offset);
+
+		for (int p = first; p <= last && p < mYear.length; p++) {
+
+			TechnicalData partition = BarFile.open(path(mSymbol, mYear[p])).load();
+
+			for (int i = 0; i < partition.size(); i++)
+				data.add(partition.time(i), partition.open(i), partition.high(i), partition.low(i), partition.close(i), partition.volumes()[i]);
+		}
+
+		return data;
+	}
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Write Partitions
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	/**
+	 * Split data into yearly partitions and write partition index (replaces existing partitions)
+	 * @param data Data to write (periods must be in ascending time order)
+	 * @return Partitions that were written
+	 * @throws IOException If a partition cannot be written
+	 */
+	public static BarPartitions write(TechnicalData data) throws IOException {
+
+		String symbol = data.symbol();
+		File directory = new File(directory(symbol));
+
+		if (!directory.exists() && !directory.mkdirs()) throw new IOException("Could not create " + directory);
+
+		// Remove old index and partitions so years no longer in data are not left behind
+		new File(directory(symbol) + INDEX).delete();
+		File[] old = directory.listFiles();
+		if (old != null) for (File file : old) if (file.getName().endsWith(BarFile.EXTENSION)) file.delete();
+
+		ArrayList<Integer> years = new ArrayList<Integer>();
+		ArrayList<Integer> counts = new ArrayList<Integer>();
+		StringBuilder index = new StringBuilder();
+
+		int size = data.size();
+		int from = 0;
+
+		while (from < size) {
+
+			int year = (int) (TimeStamp.toKey(data.time(from)) / 100000000L);
+			int to = from;
+			while (to + 1 < size && TimeStamp.toKey(data.time(to + 1)) / 100000000L == year) to++;
+
+			TechnicalData partition = new TechnicalData(symbol, to - from + 1);
+			for (int i = from; i <= to; i++)
+				partition.add(data.time(i), data.open(i), data.high(i), data.low(i), data.close(i), data.volumes()[i]);
+
+			BarFile.write(partition, path(symbol, year));
+
+			years.add(year);
+			counts.add(to - from + 1);
+			index.append(year + "," + (to - from + 1) + "," + data.timeStamp(from) + "," + data.timeStamp(to) + "\r\n");
+
+			from = to + 1;
+		}
+
+		// Index is written last, so an interrupted write leaves the partitions stale
+		try (BufferedWriter writer = new BufferedWriter(new FileWriter(directory(symbol) + INDEX))) {
+			writer.write(index.toString());
+		}
+
+		int[] year = new int[years.size()];
+		int[] rows = new int[years.size()];
+		for (int p = 0; p < year.length; p++) {
+			year[p] = years.get(p);
+			rows[p] = counts.get(p);
+		}
+
+		return new BarPartitions(symbol, year, rows);
+	}
+}
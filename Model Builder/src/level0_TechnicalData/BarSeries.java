@@ -0,0 +1,38 @@
+package level0_TechnicalData;
+
+/**
+ * Read access to a series of periods, shared by the on heap TechnicalData columns and the off
+ * heap OffHeapBars store.  Indexes run from 0 -> size() - 1 in ascending time order.
+ *
+ * @author Ryan Bell
+ */
+public interface BarSeries {
+
+
+	/** @return Symbol that identifies stock or ETF */
+	String symbol();
+
+	/** @return Number of periods */
+	int size();
+
+	/** @return Time stamp at index in YYYYMMDDhhmm format */
+	String timeStamp(int index);
+
+	/** @return Time stamp at index (epoch minutes, see TimeStamp) */
+	long time(int index);
+
+	/** @return Open value at index */
+	double open(int index);
+
+	/** @return High value at index */
+	double high(int index);
+
+	/** @return Low value at index */
+	double low(int index);
+
+	/** @return Close value at index */
+	double close(int index);
+
+	/** @return Volume at index */
+	int volume(int index);
+}
@@ -0,0 +1,128 @@
+package level0_TechnicalData;
+
+/**
+ * Range of a TechnicalData object that indicators are calculated for, along with the number of
+ * periods before the range that the indicators read (lookback).  The window shares the columns
+ * of its data (nothing is copied) and uses the same indexes as its data.
+ *
+ * Bounds are checked once when the window is created, so every index in [first(), end()] is
+ * known to be valid.  Indicators check their own lookback against the window once (require)
+ * and then loop over the columns without further checks.
+ *
+ * @author Ryan Bell
+ */
+public final class DataWindow {
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Class Variables
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	private final TechnicalData mData;		// Data window reads from
+	private final int mStart;				// First index indicators are calculated for
+	private final int mEnd;					// Last index indicators are calculated for
+	private final int mLookback;			// Periods before start that indicators read
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Constructors
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	private DataWindow(TechnicalData data, int start, int end, int lookback) {
+		mData = data;
+		mStart = start;
+		mEnd = end;
+		mLookback = lookback;
+	}
+
+
+	/**
+	 * Create window over indexes of data
+	 * @param data Data to read from
+	 * @param start First index indicators are calculated for
+	 * @param end Last index indicators are calculated for
+	 * @param lookback Periods before start that indicators read
+	 * @return Validated window
+	 * @throws IllegalArgumentException If any index in [start - lookback, end] is not in data
+	 */
+	public static DataWindow of(TechnicalData data, int start, int end, int lookback) {
+
+		String symbol = data.symbol();
+
+		if (lookback < 0)
+			throw new IllegalArgumentException(symbol + ": lookback " + lookback + " is negative");
+		if (start < 0 || end < start || end >= data.size())
+			throw new IllegalArgumentException(symbol + ": range [" + start + ", " + end + "] is not in data (size " + data.size() + ")");
+		if (start - lookback < 0)
+			throw new IllegalArgumentException(symbol + ": " + lookback + " periods before index " + start + " are required (" + start + " available)");
+
+		return new DataWindow(data, start, end, lookback);
+	}
+
+
+	/**
+	 * Create window between time stamps of data
+	 * @param data Data to read from
+	 * @param start Time stamp of first period in YYYYMMDDhhmm format (can be shortened)
+	 * @param end Time stamp of last period in YYYYMMDDhhmm format (can be shortened)
+	 * @param lookback Periods before start that indicators read
+	 * @return Validated window
+	 * @throws IllegalArgumentException If a time stamp is not in data or there are not enough periods before start
+	 */
+	public static DataWindow of(TechnicalData data, String start, String end, int lookback) {
+
+		int startIndex = data.getIndexByTimeStamp(start);
+		int endIndex = data.getIndexByTimeStamp(end);
+
+		if (startIndex < 0) throw new IllegalArgumentException(data.symbol() + ": no period at " + start);
+		if (endIndex < 0) throw new IllegalArgumentException(data.symbol() + ": no period at " + end);
+
+		return of(data, startIndex, endIndex, lookback);
+	}
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Get Methods
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	public TechnicalData data() { return mData;     }
+	public int start()          { return mStart;    }
+	public int end()            { return mEnd;      }
+	public int lookback()       { return mLookback; }
+
+
+	/** @return First index indicators may read (start - lookback) */
+	public int first() {
+		return mStart - mLookback;
+	}
+
+
+	/**
+	 * Check that an indicator reading lookback periods before start can run on this window
+	 * @param lookback Periods before start that the indicator reads
+	 * @return This window
+	 * @throws IllegalArgumentException If the window was validated for fewer periods
+	 */
+	public DataWindow require(int lookback) {
+		if (lookback > mLookback)
+			throw new IllegalArgumentException(this + " is shorter than required lookback " + lookback);
+		return this;
+	}
+
+
+	// Shared columns of data (see TechnicalData).  Indexes [first(), end()] are valid.
+
+	public double[] highs()   { return mData.highs();   }
+	public double[] lows()    { return mData.lows();    }
+	public double[] closes()  { return mData.closes();  }
+	public long[] volumes()   { return mData.volumes(); }
+
+
+	@Override
+	public String toString() {
+		return mData.symbol() + "[" + mStart + ", " + mEnd + "] lookback " + mLookback;
+	}
+}
@@ -0,0 +1,295 @@
+package level0_TechnicalData;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Several symbols aligned on one time axis (time x symbol matrix).  The axis is the union of every
+ * symbol's time stamps, built with a single k-way merge of the time columns.  Close and volume are
+ * stored as contiguous double[symbol][time] rows (NaN where a symbol has no period), and a presence
+ * bitmap marks which symbols have a period at each time.
+ *
+ * Each symbol's own index at any time is available in O(1) (rank of the presence bitmap), so code
+ * that compares symbols can step through the axis instead of matching time stamps per pair.
+ *
+ * @author Ryan Bell
+ */
+public final class MarketPanel {
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Class Variables
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	// Shared panels by symbol list (see get)
+	private static final HashMap<String, MarketPanel> mPanels = new HashMap<String, MarketPanel>();
+
+	private final String[] mSymbols;			// Symbols in panel (column order)
+	private final TechnicalData[] mData;		// Data of each symbol
+	private final int[] mSizes;					// Size of each symbol's data when panel was built
+	private final HashMap<String, Integer> mSymbolIndex = new HashMap<String, Integer>();
+
+	private final int mLength;					// Number of times on axis
+	private final long[] mTime;					// Time axis (epoch minutes, ascending)
+	private final double[][] mClose;			// Close of each symbol at each time (NaN if missing)
+	private final double[][] mVolume;			// Volume of each symbol at each time (NaN if missing)
+	private final long[][] mPresent;			// Presence bitmap of each symbol (bit per time)
+	private final int[][] mRank;				// Periods of symbol before each 64 bit word of bitmap
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Constructors
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	/**
+	 * Align data sets on a common time axis (each data set must be in ascending time order)
+	 * @param data Data of each symbol
+	 */
+	public MarketPanel(TechnicalData... data) {
+
+		int k = data.length;
+
+		mData = data.clone();
+		mSymbols = new String[k];
+		mSizes = new int[k];
+
+		for (int s = 0; s < k; s++) {
+			mSymbols[s] = data[s].symbol();
+			mSizes[s] = data[s].size();
+			mSymbolIndex.put(mSymbols[s], s);
+		}
+
+
+		// 1. Merge time columns into one axis /////////////////////////////////////////////////////
+
+
+		long[][] times = new long[k][];
+		int[] cursor = new int[k];
+		int total = 0;
+
+		for (int s = 0; s < k; s++) {
+			times[s] = data[s].times();
+			total += mSizes[s];
+		}
+
+		long[] axis = new long[Math.max(16, total / Math.max(1, k))];
+		int length = 0;
+
+		while (true) {
+
+			// Earliest time not yet merged
+			long next = Long.MAX_VALUE;
+			for (int s = 0; s < k; s++)
+				if (cursor[s] < mSizes[s] && times[s][cursor[s]] < next) next = times[s][cursor[s]];
+
+			if (next == Long.MAX_VALUE) break;
+
+			if (length == axis.length) axis = Arrays.copyOf(axis, length * 2);
+			axis[length] = next;
+
+			// Record every symbol that has this time
+			for (int s = 0; s < k; s++)
+				if (cursor[s] < mSizes[s] && times[s][cursor[s]] == next) cursor[s]++;
+
+			length++;
+		}
+
+		mLength = length;
+		mTime = Arrays.copyOf(axis, length);
+
+
+		// 2. Fill close, volume, and presence rows ////////////////////////////////////////////////
+
+
+		int words = (length + 63) >>> 6;
+
+		mClose = new double[k][length];
+		mVolume = new double[k][length];
+		mPresent = new long[k][words];
+		mRank = new int[k][words];
+
+		for (int s = 0; s < k; s++) {
+
+			double[] close = data[s].closes();
+			long[] volume = data[s].volumes();
+
+			Arrays.fill(mClose[s], Double.NaN);
+			Arrays.fill(mVolume[s], Double.NaN);
+
+			int i = 0;
+
+			for (int t = 0; t < length && i < mSizes[s]; t++) {
+
+				if (times[s][i] != mTime[t]) continue;
+
+				mClose[s][t] = close[i];
+				mVolume[s][t] = volume[i];
+				mPresent[s][t >>> 6] |= 1L << (t & 63);
+				i++;
+			}
+
+			for (int w = 1; w < words; w++)
+				mRank[s][w] = mRank[s][w - 1] + Long.bitCount(mPresent[s][w - 1]);
+		}
+	}
+
+
+	/**
+	 * Shared panel of symbols' registry data.  Built once and reused until one of its symbols is
+	 * invalidated in the registry or has periods appended.  The panel keeps its data even if the
+	 * registry evicts it, so a full universe is not re-read for every comparison.
+	 * @param symbols Symbols in panel (e.g. Variables.SYMBOLS)
+	 * @return Aligned panel
+	 */
+	public static MarketPanel get(String... symbols) {
+
+		String key = String.join(",", symbols);
+
+		synchronized (mPanels) {
+
+			MarketPanel panel = mPanels.get(key);
+			if (panel != null && !panel.changed()) return panel;
+
+			TechnicalData[] data = new TechnicalData[symbols.length];
+			for (int s = 0; s < symbols.length; s++) data[s] = TechnicalDataRegistry.get(symbols[s]);
+
+			panel = new MarketPanel(data);
+			mPanels.put(key, panel);
+
+			return panel;
+		}
+	}
+
+
+	/**
+	 * Drop shared panels that contain symbol (called when its data file is re-written)
+	 * @param symbol Stock or ETF identifier
+	 */
+	static void invalidate(String symbol) {
+
+		synchronized (mPanels) {
+			mPanels.values().removeIf(panel -> panel.symbolIndex(symbol) >= 0);
+		}
+	}
+
+
+	/** Drop all shared panels */
+	static void clear() {
+
+		synchronized (mPanels) {
+			mPanels.clear();
+		}
+	}
+
+
+	/** @return True if periods have been appended to any data since panel was built */
+	private boolean changed() {
+
+		for (int s = 0; s < mData.length; s++)
+			if (mData[s].size() != mSizes[s]) return true;
+
+		return false;
+	}
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Get Methods
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	/** @return Number of times on axis */
+	public int length() {
+		return mLength;
+	}
+
+
+	/** @return Number of symbols in panel */
+	public int symbols() {
+		return mSymbols.length;
+	}
+
+
+	/** @return Symbol of column */
+	public String symbol(int s) {
+		return mSymbols[s];
+	}
+
+
+	/** @return Column of symbol (-1 if not in panel) */
+	public int symbolIndex(String symbol) {
+		Integer s = mSymbolIndex.get(symbol);
+		return s == null ? -1 : s;
+	}
+
+
+	/** @return Data panel was built from for column */
+	public TechnicalData data(int s) {
+		return mData[s];
+	}
+
+
+	/** @return Time at row (epoch minutes) */
+	public long time(int row) {
+		return mTime[row];
+	}
+
+
+	/** @return Row of time (-1 if no symbol has a period at time) */
+	public int row(long time) {
+		int row = Arrays.binarySearch(mTime, 0, mLength, time);
+		return row >= 0 ? row : -1;
+	}
+
+
+	/** @return True if symbol has a period at row */
+	public boolean present(int s, int row) {
+		return (mPresent[s][row >>> 6] & (1L << (row & 63))) != 0;
+	}
+
+
+	/** @return Index in symbol's own data of period at row (-1 if symbol has no period at row) */
+	public int dataIndex(int s, int row) {
+
+		if (!present(s, row)) return -1;
+
+		long below = mPresent[s][row >>> 6] & ((1L << (row & 63)) - 1);
+		return mRank[s][row >>> 6] + Long.bitCount(below);
+	}
+
+
+	// Rows of matrix (not copied, must not be modified).  Missing values are NaN.
+	public double[] closes(int s)  { return mClose[s];  }
+	public double[] volumes(int s) { return mVolume[s]; }
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Cross Sectional Methods
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	/**
+	 * Rows where every symbol has a period
+	 * @return Bitmap with one bit per row (bit set = all symbols present)
+	 */
+	public long[] intersection() {
+
+		long[] all = new long[mPresent.length == 0 ? 0 : mPresent[0].length];
+		Arrays.fill(all, -1L);
+
+		for (long[] present : mPresent)
+			for (int w = 0; w < all.length; w++) all[w] &= present[w];
+
+		// Clear bits past the end of the axis
+		if ((mLength & 63) != 0 && all.length > 0) all[all.length - 1] &= (1L << (mLength & 63)) - 1;
+
+		return all;
+	}
+
+
+	/** @return True if bit for row is set in bitmap */
+	public static boolean isSet(long[] bitmap, int row) {
+		return (bitmap[row >>> 6] & (1L << (row & 63))) != 0;
+	}
+}
@@ -0,0 +1,408 @@
+package level0_TechnicalData;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Periods or ticks stored outside the Java heap, read through the same accessors as
+ * TechnicalData (see BarSeries).  Columns { Time, Open, High, Low, Close, Volume } live in direct
+ * ByteBuffers allocated in chunks as the store grows, or in the memory mapped columns of a bar
+ * file (see map), so multi-GB histories are never copied onto the heap or scanned by the garbage
+ * collector.
+ *
+ * The time column is stored in units of unitSeconds() seconds (60 for bars, 1 for ticks), so
+ * time(index) is in epoch minutes like TechnicalData and epochSecond(index) keeps tick times.
+ *
+ * BarFile.load reads every bar file through a mapped store (map, copy, close), so bar files are
+ * unmapped as soon as they have been copied rather than when the garbage collector runs.
+ *
+ * Stores must be closed when no longer needed.  Closing takes the store's bytes off the usage
+ * gauges, makes every later read throw IllegalStateException, and frees the direct and mapped
+ * buffers right away through the JDK's buffer cleaner (sun.misc.Unsafe.invokeCleaner on Java 9+,
+ * the buffer's own cleaner on Java 8).  If neither can be reached the buffers are freed when the
+ * garbage collector collects them.  A freed buffer must never be read again, so a store must
+ * not be closed while another thread is still reading it.
+ *
+ * @author Ryan Bell
+ */
+public final class OffHeapBars implements BarSeries, Closeable {
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Class Variables
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	private static final int COLUMNS = 6;						// Time, Open, High, Low, Close, Volume
+	private static final int CHUNK_SHIFT = 16;					// 2^16 periods per allocated chunk (512 KB per column)
+	private static final int MAP_SHIFT = Integer.numberOfTrailingZeros(BarFile.MAX_MAP_ROWS);	// Periods per mapped chunk (as power of 2)
+
+	private static final AtomicLong mAllocated = new AtomicLong();	// Direct bytes held by open stores (see close)
+	private static final AtomicLong mMapped = new AtomicLong();		// Mapped bytes held by open stores (see close)
+
+	private static final Object UNSAFE = unsafe();				// sun.misc.Unsafe (null if not reachable)
+	private static final Method INVOKE_CLEANER = invokeCleaner();	// Unsafe.invokeCleaner (null before Java 9)
+
+	private final String mSymbol;				// Symbol that identifies stock or ETF
+	private final int mUnitSeconds;				// Seconds per unit of time column
+	private final int mShift;					// Periods per chunk (as power of 2)
+	private final int mMask;					// Index of period within its chunk
+	private final boolean mReadOnly;			// True if columns are mapped from a file
+
+	private volatile ByteBuffer[][] mColumns;	// Chunks of each column (null once closed)
+	private volatile int mSize;					// Number of periods (written last when appending)
+	private long mBytes;						// Bytes held by this store
+
+
+	private OffHeapBars(String symbol, int unitSeconds, int shift, boolean readOnly, ByteBuffer[][] columns, int size, long bytes) {
+		mSymbol = symbol;
+		mUnitSeconds = unitSeconds;
+		mShift = shift;
+		mMask = (1 << shift) - 1;
+		mReadOnly = readOnly;
+		mColumns = columns;
+		mSize = size;
+		mBytes = bytes;
+	}
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Create and Close
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	/**
+	 * Create empty store that periods can be appended to
+	 * @param symbol Stock or ETF identifier
+	 * @param unitSeconds Seconds per unit of time column (60 for bars, 1 for ticks)
+	 * @return Empty store
+	 */
+	public static OffHeapBars allocate(String symbol, int unitSeconds) {
+		return new OffHeapBars(symbol, unitSeconds, CHUNK_SHIFT, false, new ByteBuffer[COLUMNS][0], 0, 0);
+	}
+
+
+	/**
+	 * Read only store over the mapped columns of a bar file (nothing is copied).  Each column is
+	 * mapped in chunks of 2^MAP_SHIFT periods, so files larger than 2 GB can be mapped.
+	 * @param path Location of bar file (see BarFile)
+	 * @return Store with every period in file
+	 * @throws IOException If file is missing or is not a bar file
+	 */
+	public static OffHeapBars map(String path) throws IOException {
+		return map(BarFile.open(path));
+	}
+
+
+	/** Read only store over the mapped columns of an open bar file (see map) */
+	static OffHeapBars map(BarFile file) throws IOException {
+
+		int rows = file.rows();
+		int chunks = (int) (((long) rows + (1 << MAP_SHIFT) - 1) >>> MAP_SHIFT);
+
+		ByteBuffer[][] columns = new ByteBuffer[COLUMNS][chunks];
+
+		for (int c = 0; c < COLUMNS; c++) {
+			for (int k = 0; k < chunks; k++) {
+				long first = (long) k << MAP_SHIFT;
+				columns[c][k] = file.map(c, first, (int) Math.min(1 << MAP_SHIFT, rows - first));
+			}
+		}
+
+		long bytes = (long) rows * BarFile.ROW_BYTES;
+		mMapped.addAndGet(bytes);
+
+		return new OffHeapBars(file.symbol(), 60, MAP_SHIFT, true, columns, rows, bytes);
+	}
+
+
+	/**
+	 * Free columns and take their bytes off the usage gauges.  Later reads throw
+	 * IllegalStateException.  Must not be called while another thread is reading the store (see
+	 * class comment).
+	 */
+	@Override
+	public synchronized void close() {
+
+		ByteBuffer[][] columns = mColumns;
+		if (columns == null) return;
+
+		mColumns = null;
+		(mReadOnly ? mMapped : mAllocated).addAndGet(-mBytes);
+		mBytes = 0;
+
+		for (ByteBuffer[] chunks : columns)
+			for (ByteBuffer chunk : chunks) free(chunk);
+	}
+
+
+	/** @return True once store has been closed */
+	public boolean isClosed() {
+		return mColumns == null;
+	}
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Memory Usage
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	/** @return Direct memory held by all open stores (bytes) */
+	public static long allocatedBytes() {
+		return mAllocated.get();
+	}
+
+
+	/** @return Mapped file memory held by all open stores (bytes) */
+	public static long mappedBytes() {
+		return mMapped.get();
+	}
+
+
+	/** @return Memory held by this store (bytes) */
+	public synchronized long bytes() {
+		return mBytes;
+	}
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Append
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	/**
+	 * Append period to end of store.  A new chunk of every column is allocated when full.
+	 * Readers on other threads see the period once size() includes it.
+	 * @param epochSecond Time of period (seconds since 1970-01-01 00:00)
+	 * @param open Open price
+	 * @param high High price
+	 * @param low Low price
+	 * @param close Close price
+	 * @param volume Volume
+	 * @throws IllegalStateException If store is mapped or closed
+	 * @throws IllegalArgumentException If time is before the last period
+	 */
+	public synchronized void append(long epochSecond, double open, double high, double low, double close, long volume) {
+
+		ByteBuffer[][] columns = columns();
+		int size = mSize;
+
+		if (mReadOnly) throw new IllegalStateException(mSymbol + ": mapped store is read only");
+		if (size > 0 && epochSecond < epochSecond(size - 1))
+			throw new IllegalArgumentException(mSymbol + ": " + epochSecond + " is before last period");
+
+		int chunk = size >>> mShift;
+
+		if (chunk == columns[0].length) {
+
+			int bytes = 8 << mShift;
+
+			for (int c = 0; c < COLUMNS; c++) {
+				columns[c] = Arrays.copyOf(columns[c], chunk + 1);
+				columns[c][chunk] = ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+			}
+
+			mBytes += (long) COLUMNS * bytes;
+			mAllocated.addAndGet((long) COLUMNS * bytes);
+			mColumns = columns;
+		}
+
+		int offset = (size & mMask) << 3;
+
+		columns[0][chunk].putLong(offset, Math.floorDiv(epochSecond, mUnitSeconds));
+		columns[1][chunk].putDouble(offset, open);
+		columns[2][chunk].putDouble(offset, high);
+		columns[3][chunk].putDouble(offset, low);
+		columns[4][chunk].putDouble(offset, close);
+		columns[5][chunk].putLong(offset, volume);
+
+		mSize = size + 1;
+	}
+
+
+	/**
+	 * Append tick (open, high, low, and close are all the tick price)
+	 * @param timeStamp Time in YYYYMMDDhhmmss format
+	 * @param price Price at tick
+	 * @param volume Volume at tick
+	 */
+	public void appendTick(String timeStamp, double price, long volume) {
+
+		int seconds = timeStamp.length() >= 14 ? Integer.parseInt(timeStamp.substring(12, 14)) : 0;
+		append(TimeStamp.parse(timeStamp) * 60 + seconds, price, price, price, price, volume);
+	}
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Get Methods
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	public String symbol()   { return mSymbol;      }
+	public int size()        { return mSize;        }
+	public int unitSeconds() { return mUnitSeconds; }
+
+
+	public String timeStamp(int index)  { return TimeStamp.format(time(index));                          }
+	public long time(int index)         { return Math.floorDiv(epochSecond(index), 60L);                  }
+	public long epochSecond(int index)  { return getLong(0, index) * mUnitSeconds;                       }
+	public double open(int index)       { return getDouble(1, index);                                    }
+	public double high(int index)       { return getDouble(2, index);                                    }
+	public double low(int index)        { return getDouble(3, index);                                    }
+	public double close(int index)      { return getDouble(4, index);                                    }
+	public int volume(int index)        { return (int) getLong(5, index);                                }
+	public long volumeLong(int index)   { return getLong(5, index);                                      }
+
+
+	/**
+	 * Copy range onto the heap (e.g. to run indicators on a recent slice).  Columns are copied a
+	 * chunk at a time.
+	 * @param from First index to copy
+	 * @param to Last index to copy
+	 * @return TechnicalData with periods from -> to
+	 */
+	public TechnicalData copy(int from, int to) {
+
+		int rows = Math.max(0, to - from + 1);
+		if (rows > 0) { checkIndex(from); checkIndex(to); }
+
+		ByteBuffer[][] columns = columns();
+
+		long[] time     = new long[rows];
+		double[] open   = new double[rows];
+		double[] high   = new double[rows];
+		double[] low    = new double[rows];
+		double[] close  = new double[rows];
+		long[] volume   = new long[rows];
+
+		for (int row = 0; row < rows; ) {
+
+			int index = from + row;
+			int chunk = index >>> mShift;
+			int position = index & mMask;
+			int count = Math.min(rows - row, mMask + 1 - position);
+
+			view(columns[0][chunk], position).asLongBuffer().get(time, row, count);
+			view(columns[1][chunk], position).asDoubleBuffer().get(open, row, count);
+			view(columns[2][chunk], position).asDoubleBuffer().get(high, row, count);
+			view(columns[3][chunk], position).asDoubleBuffer().get(low, row, count);
+			view(columns[4][chunk], position).asDoubleBuffer().get(close, row, count);
+			view(columns[5][chunk], position).asLongBuffer().get(volume, row, count);
+
+			row += count;
+		}
+
+		// Time column is in epoch minutes already for bars
+		if (mUnitSeconds != 60)
+			for (int i = 0; i < rows; i++) time[i] = Math.floorDiv(time[i] * mUnitSeconds, 60L);
+
+		return new TechnicalData(mSymbol, time, open, high, low, close, volume, rows);
+	}
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Helper Methods
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	/** @return View of chunk starting at period position (same byte order, chunk is not moved) */
+	private static ByteBuffer view(ByteBuffer chunk, int position) {
+
+		ByteBuffer view = chunk.duplicate().order(chunk.order());
+		view.position(position << 3);
+		return view.slice().order(chunk.order());
+	}
+
+
+	/** @return Columns of open store */
+	private ByteBuffer[][] columns() {
+
+		ByteBuffer[][] columns = mColumns;
+		if (columns == null) throw new IllegalStateException(mSymbol + ": store is closed");
+		return columns;
+	}
+
+
+	private long getLong(int column, int index) {
+		checkIndex(index);
+		return columns()[column][index >>> mShift].getLong((index & mMask) << 3);
+	}
+
+
+	private double getDouble(int column, int index) {
+		checkIndex(index);
+		return columns()[column][index >>> mShift].getDouble((index & mMask) << 3);
+	}
+
+
+	private void checkIndex(int index) {
+		if (index < 0 || index >= mSize) throw new IndexOutOfBoundsException(mSymbol + ": index " + index + " (size " + mSize + ")");
+	}
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Free Buffers
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	/**
+	 * Free direct or mapped buffer now instead of when it is garbage collected
+	 * @param buffer Buffer that is no longer read (not a slice or duplicate)
+	 * @return True if buffer was freed, false if it is left to the garbage collector
+	 */
+	private static boolean free(ByteBuffer buffer) {
+
+		if (buffer == null || !buffer.isDirect()) return false;
+
+		try {
+
+			// Java 9+
+			if (INVOKE_CLEANER != null) {
+				INVOKE_CLEANER.invoke(UNSAFE, buffer);
+				return true;
+			}
+
+			// Java 8: DirectByteBuffer.cleaner().clean()
+			Method getCleaner = buffer.getClass().getMethod("cleaner");
+			getCleaner.setAccessible(true);
+			Object cleaner = getCleaner.invoke(buffer);
+			if (cleaner == null) return false;
+
+			cleaner.getClass().getMethod("clean").invoke(cleaner);
+			return true;
+
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			return false;
+		}
+	}
+
+
+	/** @return sun.misc.Unsafe instance (null if not reachable) */
+	private static Object unsafe() {
+
+		try {
+			Field field = Class.forName("sun.misc.Unsafe").getDeclaredField("theUnsafe");
+			field.setAccessible(true);
+			return field.get(null);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			return null;
+		}
+	}
+
+
+	/** @return sun.misc.Unsafe.invokeCleaner (null before Java 9 or if not reachable) */
+	private static Method invokeCleaner() {
+
+		try {
+			return UNSAFE == null ? null : UNSAFE.getClass().getMethod("invokeCleaner", ByteBuffer.class);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,211 @@
+package level0_TechnicalData;
+
+/**
+ * Highest high, lowest low, and highest / lowest volume over any range [i, j] of a TechnicalData
+ * object without scanning the range.  Built once per data object (see TechnicalData.rangeIndex)
+ * and shared by every indicator that needs range extremes.
+ *
+ * Each column is split into blocks of 64 periods.  A range that crosses a block boundary is
+ * answered in O(1) from the extreme of its first block's suffix, its last block's prefix, and a
+ * sparse table over whole blocks in between.  A range inside one block reads at most 64 values.
+ * Each table is built in O(n) on first use and takes about 3n values of memory.
+ *
+ * @author Ryan Bell
+ */
+public final class RangeIndex {
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Class Variables
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	private static final int SHIFT = 6;					// 2^6 = 64 periods per block
+
+	// Bytes used per period indexed once every table is built (prefix and suffix of 4 tables and
+	// volume column as doubles, block tables are far shorter)
+	static final int PERIOD_BYTES = 4 * 2 * 8 + 8;
+
+	// Tables that can be built
+	private static final int HIGH_MAX = 0, LOW_MIN = 1, VOLUME_MAX = 2, VOLUME_MIN = 3;
+
+	private final TechnicalData mData;					// Data index was built from
+	private final int mSize;							// Number of periods indexed
+
+	// Tables of each column (built on first use)
+	private volatile Table mHighMax, mLowMin, mVolumeMax, mVolumeMin;
+	private double[] mVolumes;							// Volume column as doubles (shared by volume tables)
+
+
+	/**
+	 * Index periods [0, size()) of data.  Tables are built when first queried.
+	 * @param data Data to index
+	 */
+	public RangeIndex(TechnicalData data) {
+		mData = data;
+		mSize = data.size();
+	}
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Range Queries (i <= j, both in [0, size()))
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	/** @return Highest high over [i, j] */
+	public double maxHigh(int i, int j) {
+
+		Table table = mHighMax;
+		if (table == null) table = build(HIGH_MAX);
+
+		return table.query(i, j);
+	}
+
+
+	/** @return Lowest low over [i, j] */
+	public double minLow(int i, int j) {
+
+		Table table = mLowMin;
+		if (table == null) table = build(LOW_MIN);
+
+		return table.query(i, j);
+	}
+
+
+	/** @return Highest volume over [i, j] */
+	public double maxVolume(int i, int j) {
+
+		Table table = mVolumeMax;
+		if (table == null) table = build(VOLUME_MAX);
+
+		return table.query(i, j);
+	}
+
+
+	/** @return Lowest volume over [i, j] */
+	public double minVolume(int i, int j) {
+
+		Table table = mVolumeMin;
+		if (table == null) table = build(VOLUME_MIN);
+
+		return table.query(i, j);
+	}
+
+
+	/** @return Number of periods indexed */
+	public int size() {
+		return mSize;
+	}
+
+
+	/** Build table if another thread has not already built it */
+	private synchronized Table build(int table) {
+
+		switch (table) {
+		case HIGH_MAX:   if (mHighMax == null)   mHighMax = new Table(mData.highs(), mSize, true);   return mHighMax;
+		case LOW_MIN:    if (mLowMin == null)    mLowMin = new Table(mData.lows(), mSize, false);    return mLowMin;
+		case VOLUME_MAX: if (mVolumeMax == null) mVolumeMax = new Table(volumes(), mSize, true);     return mVolumeMax;
+		default:         if (mVolumeMin == null) mVolumeMin = new Table(volumes(), mSize, false);    return mVolumeMin;
+		}
+	}
+
+
+	/** @return Volume column as doubles (exact below 2^53, called while holding lock) */
+	private double[] volumes() {
+
+		if (mVolumes == null) {
+			long[] volume = mData.volumes();
+			mVolumes = new double[mSize];
+			for (int i = 0; i < mSize; i++) mVolumes[i] = volume[i];
+		}
+
+		return mVolumes;
+	}
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Block Table
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	/** Max (or min) table over one column */
+	private static final class Table {
+
+		private final double[] mValues;			// Column (not copied)
+		private final boolean mMax;				// True = max, False = min
+		private final double[] mPrefix;			// Extreme from start of block to each index
+		private final double[] mSuffix;			// Extreme from each index to end of block
+		private final double[][] mBlocks;		// mBlocks[k][b] = extreme of blocks b -> b + 2^k - 1
+
+
+		Table(double[] values, int n, boolean max) {
+
+			mValues = values;
+			mMax = max;
+			mPrefix = new double[n];
+			mSuffix = new double[n];
+
+			int blocks = (n + (1 << SHIFT) - 1) >>> SHIFT;
+
+
+			// 1. Prefix and suffix extremes within each block /////////////////////////////////////
+
+
+			for (int i = 0; i < n; i++)
+				mPrefix[i] = (i & ((1 << SHIFT) - 1)) == 0 ? values[i] : extreme(mPrefix[i - 1], values[i]);
+
+			for (int i = n - 1; i >= 0; i--)
+				mSuffix[i] = ((i + 1) & ((1 << SHIFT) - 1)) == 0 || i == n - 1 ? values[i] : extreme(mSuffix[i + 1], values[i]);
+
+
+			// 2. Sparse table over whole blocks ///////////////////////////////////////////////////
+
+
+			int levels = 1;
+			while ((1 << levels) <= blocks) levels++;
+
+			mBlocks = new double[levels][];
+			mBlocks[0] = new double[blocks];
+			for (int b = 0; b < blocks; b++) mBlocks[0][b] = mSuffix[b << SHIFT];
+
+			for (int k = 1; k < levels; k++) {
+
+				int count = blocks - (1 << k) + 1;
+				mBlocks[k] = new double[Math.max(0, count)];
+
+				for (int b = 0; b < count; b++)
+					mBlocks[k][b] = extreme(mBlocks[k - 1][b], mBlocks[k - 1][b + (1 << (k - 1))]);
+			}
+		}
+
+
+		double query(int i, int j) {
+
+			int first = i >>> SHIFT;
+			int last = j >>> SHIFT;
+
+			// Range inside one block
+			if (first == last) {
+				double result = mValues[i];
+				for (int x = i + 1; x <= j; x++) result = extreme(result, mValues[x]);
+				return result;
+			}
+
+			double result = extreme(mSuffix[i], mPrefix[j]);
+
+			// Whole blocks between first and last (two overlapping power of 2 runs)
+			if (last - first > 1) {
+				int count = last - first - 1;
+				int k = 31 - Integer.numberOfLeadingZeros(count);
+				result = extreme(result, extreme(mBlocks[k][first + 1], mBlocks[k][last - (1 << k)]));
+			}
+
+			return result;
+		}
+
+
+		private double extreme(double a, double b) {
+			return mMax ? (a >= b ? a : b) : (a <= b ? a : b);
+		}
+	}
+}
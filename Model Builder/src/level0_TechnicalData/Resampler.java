@@ -0,0 +1,177 @@
+package level0_TechnicalData;
+
+import model.Variables;
+
+/**
+ * Builds calendar aligned bars (e.g. 15 minute, hourly, daily, weekly) from TechnicalData.  Unlike
+ * TechnicalData.modifyTechnicalData, which combines each period with the periods before it, every
+ * bar here covers a fixed block of time, so a daily bar is one trading day and not the last
+ * Variables.PIM periods.
+ *
+ * Intraday bars are aligned to the session start (Variables.HourStart:MinuteStart) and never span
+ * two days, so an hourly bar covers 09:30 -> 10:25 and the last bar of a day may be shorter.
+ * Each bar is stamped with the start of its block (daily and weekly bars with their first period),
+ * takes its open from its first period, its close from its last period, the high (low) from the
+ * max (min) of the block, and the volume from the sum of the block.
+ *
+ * Results are cached by the data object (see TechnicalData.resampled).
+ *
+ * @author Ryan Bell
+ */
+public final class Resampler {
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Class Variables
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	public static final int DAILY = 24 * 60;		// Time frame of one bar per trading day
+	public static final int WEEKLY = 7 * DAILY;		// Time frame of one bar per week (Monday -> Sunday)
+
+	// Minute of day that intraday bars are aligned to
+	private static final int SESSION_START = Variables.HourStart * 60 + Variables.MinuteStart;
+
+
+	private Resampler() { }
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Primary Method for Class
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	/**
+	 * Build bars for every time frame in one pass over data
+	 * @param data Data to resample (periods must be in ascending time order)
+	 * @param timeFrames Length of each bar in minutes (multiple of Variables.NP below DAILY, DAILY, or WEEKLY)
+	 * @return Resampled data in the same order as timeFrames
+	 * @throws IllegalArgumentException If a time frame is not supported
+	 */
+	public static TechnicalData[] resample(TechnicalData data, int... timeFrames) {
+
+		for (int timeFrame : timeFrames) check(timeFrame);
+
+		int size = data.size();
+		int frames = timeFrames.length;
+
+		long[] time    = data.times();
+		double[] open  = data.opens();
+		double[] high  = data.highs();
+		double[] low   = data.lows();
+		double[] close = data.closes();
+		long[] volume  = data.volumes();
+
+		Bars[] bars = new Bars[frames];
+		for (int f = 0; f < frames; f++) bars[f] = new Bars(size);
+
+
+		// 1. Add each period to the current bar of every time frame ///////////////////////////////
+
+
+		for (int i = 0; i < size; i++) {
+
+			long day = TimeStamp.epochDayOf(time[i]);
+			int minute = TimeStamp.minuteOfDay(time[i]);
+
+			for (int f = 0; f < frames; f++) {
+
+				Bars b = bars[f];
+				long block = block(timeFrames[f], day, minute);
+				int n = b.mSize;
+
+				// Start new bar
+				if (n == 0 || block != b.mBlock) {
+					b.mBlock = block;
+					b.mTime[n]   = stamp(timeFrames[f], block, time[i]);
+					b.mOpen[n]   = open[i];
+					b.mHigh[n]   = high[i];
+					b.mLow[n]    = low[i];
+					b.mClose[n]  = close[i];
+					b.mVolume[n] = volume[i];
+					b.mSize++;
+				}
+
+				// Extend current bar
+				else {
+					n--;
+					if (high[i] > b.mHigh[n]) b.mHigh[n] = high[i];
+					if (low[i] < b.mLow[n]) b.mLow[n] = low[i];
+					b.mClose[n] = close[i];
+					b.mVolume[n] += volume[i];
+				}
+			}
+		}
+
+
+		// 2. Wrap bars as TechnicalData ///////////////////////////////////////////////////////////
+
+
+		TechnicalData[] result = new TechnicalData[frames];
+
+		for (int f = 0; f < frames; f++) {
+			Bars b = bars[f];
+			result[f] = new TechnicalData(data.symbol(), b.mTime, b.mOpen, b.mHigh, b.mLow, b.mClose, b.mVolume, b.mSize);
+			result[f].trim();
+		}
+
+		return result;
+	}
+
+
+	/**
+	 * Check that time frame can be built from Variables.NP minute periods
+	 * @param timeFrame Length of each bar in minutes
+	 * @throws IllegalArgumentException If time frame is not supported
+	 */
+	public static void check(int timeFrame) {
+
+		if (timeFrame == DAILY || timeFrame == WEEKLY) return;
+
+		if (timeFrame < Variables.NP || timeFrame >= DAILY || timeFrame % Variables.NP != 0)
+			throw new IllegalArgumentException("Time frame " + timeFrame + " must be a multiple of " + Variables.NP + " below " + DAILY + " minutes, DAILY, or WEEKLY");
+	}
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Helper Methods
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	/** @return Number identifying the block of time period belongs to (same number = same bar) */
+	private static long block(int timeFrame, long day, int minute) {
+
+		if (timeFrame == DAILY) return day;
+		if (timeFrame == WEEKLY) return Math.floorDiv(day + 3, 7L);		// 1970-01-01 was a Thursday
+
+		return day * DAILY + SESSION_START + Math.floorDiv(minute - SESSION_START, timeFrame) * timeFrame;
+	}
+
+
+	/** @return Time stamp of bar in epoch minutes */
+	private static long stamp(int timeFrame, long block, long firstTime) {
+		return timeFrame == DAILY || timeFrame == WEEKLY ? firstTime : block;
+	}
+
+
+	/** Columns of bars being built for one time frame (sized for the worst case, trimmed after) */
+	private static final class Bars {
+
+		final long[] mTime;
+		final double[] mOpen, mHigh, mLow, mClose;
+		final long[] mVolume;
+
+		int mSize;
+		long mBlock;
+
+		Bars(int n) {
+
+			mTime   = new long[n];
+			mOpen   = new double[n];
+			mHigh   = new double[n];
+			mLow    = new double[n];
+			mClose  = new double[n];
+			mVolume = new long[n];
+		}
+	}
+}
@@ -0,0 +1,241 @@
+package level0_TechnicalData;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * Reads local files, files included in the jar, and web pages (replaces WebInputStream).
+ *
+ * Local files are read with one channel read.  URLs are streamed through a fixed size buffer, so
+ * readUntil stops downloading as soon as the values it needs have arrived instead of holding the
+ * whole page.  A URL that fails to open or read is tried again up to ATTEMPTS times, waiting
+ * BACKOFF ms before the second attempt and twice as long before each later one.  Missing pages
+ * (HTTP 404) and malformed URLs are not retried.
+ *
+ * Any http:// URL works, so callers that take a quote URL (TechnicalData, PullData.getPage) can be
+ * pointed at a local stand-in server.
+ *
+ * @author Ryan Bell
+ */
+public final class ResourceReader {
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Class Variables
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	public static final int ATTEMPTS = 3;					// Times a URL is tried before failing
+	public static final int BACKOFF = 500;					// Wait before second attempt (ms, doubled after)
+	public static final int TIMEOUT = 10000;				// Connect and read timeout of URLs (ms)
+
+	private static final int BUFFER_CHARS = 16 << 10;		// Characters decoded per read
+	private static final int MAX_CHARS = 64 << 20;			// Largest resource read into memory
+
+
+	private ResourceReader() { }
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Primary Methods for Class
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	/**
+	 * Read whole resource as bytes
+	 * @param resource Local file path, path of file included in jar, or URL
+	 * @return Contents of resource
+	 * @throws IOException If resource cannot be read (after all attempts for a URL)
+	 */
+	public static byte[] readAllBytes(String resource) throws IOException {
+
+		Path file = localFile(resource);
+		if (file != null) return Files.readAllBytes(file);
+
+		IOException failure = null;
+
+		for (int attempt = 0; attempt < ATTEMPTS; attempt++) {
+
+			backoff(attempt);
+
+			try (InputStream in = open(resource)) {
+
+				ByteArrayOutputStream out = new ByteArrayOutputStream(BUFFER_CHARS);
+				byte[] buffer = new byte[BUFFER_CHARS];
+				int read;
+
+				while ((read = in.read(buffer)) != -1) {
+					out.write(buffer, 0, read);
+					if (out.size() > MAX_CHARS) throw new IOException(resource + " is larger than " + (MAX_CHARS >> 20) + " MB");
+				}
+
+				return out.toByteArray();
+
+			} catch (FileNotFoundException | MalformedURLException e) {
+				throw e;
+			} catch (IOException e) {
+				failure = e;
+			}
+		}
+
+		throw failure;
+	}
+
+
+	/**
+	 * Read whole resource as UTF-8 text
+	 * @param resource Local file path, path of file included in jar, or URL
+	 * @return Contents of resource
+	 * @throws IOException If resource cannot be read (after all attempts for a URL)
+	 */
+	public static String readAll(String resource) throws IOException {
+		return new String(readAllBytes(resource), StandardCharsets.UTF_8);
+	}
+
+
+	/**
+	 * Read start of resource until each prefix has been found followed by its suffix (e.g. the
+	 * price and volume fields of a quote page).  Reading stops as soon as every field is complete.
+	 * @param resource Local file path, path of file included in jar, or URL
+	 * @param prefixes Text before each field
+	 * @param suffixes Character after each field
+	 * @return Text read (whole resource if a field is missing)
+	 * @throws IOException If resource cannot be read (after all attempts for a URL)
+	 */
+	public static String readUntil(String resource, String[] prefixes, char[] suffixes) throws IOException {
+
+		IOException failure = null;
+		boolean local = localFile(resource) != null;
+
+		for (int attempt = 0; attempt < (local ? 1 : ATTEMPTS); attempt++) {
+
+			backoff(attempt);
+
+			try (Reader in = new InputStreamReader(open(resource), StandardCharsets.UTF_8)) {
+				return readFields(in, resource, prefixes, suffixes);
+			} catch (FileNotFoundException | MalformedURLException e) {
+				throw e;
+			} catch (IOException e) {
+				if (local) throw e;
+				failure = e;
+			}
+		}
+
+		throw failure;
+	}
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Helper Methods
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	/** Read from in until every field is complete (see readUntil) */
+	private static String readFields(Reader in, String resource, String[] prefixes, char[] suffixes) throws IOException {
+
+		StringBuilder text = new StringBuilder(BUFFER_CHARS);
+		char[] buffer = new char[BUFFER_CHARS];
+
+		int[] start = new int[prefixes.length];				// Index after each prefix (-1 until found)
+		boolean[] done = new boolean[prefixes.length];		// True once field's suffix is found
+		int complete = 0;									// Number of fields done
+		Arrays.fill(start, -1);
+
+		int read;
+
+		while (complete < prefixes.length && (read = in.read(buffer)) != -1) {
+
+			int from = text.length();
+			text.append(buffer, 0, read);
+
+			if (text.length() > MAX_CHARS) throw new IOException(resource + " is larger than " + (MAX_CHARS >> 20) + " MB");
+
+			// Search only new text (and the end of old text a prefix could have been split over)
+			for (int f = 0; f < prefixes.length; f++) {
+
+				if (done[f]) continue;
+
+				if (start[f] < 0) {
+					int index = text.indexOf(prefixes[f], Math.max(0, from - prefixes[f].length() + 1));
+					if (index < 0) continue;
+					start[f] = index + prefixes[f].length();
+				}
+
+				for (int i = Math.max(start[f], from); i < text.length(); i++) {
+					if (text.charAt(i) == suffixes[f]) {
+						done[f] = true;
+						complete++;
+						break;
+					}
+				}
+			}
+		}
+
+		return text.toString();
+	}
+
+
+	/** @return Path of resource if it is a local file (null otherwise) */
+	private static Path localFile(String resource) {
+
+		try {
+			Path path = Paths.get(resource);
+			return Files.isRegularFile(path) ? path : null;
+		} catch (RuntimeException e) {
+			return null;	// Not a valid local path (e.g. a URL on Windows)
+		}
+	}
+
+
+	/** Open stream to local file, file included in jar, or URL */
+	private static InputStream open(String resource) throws IOException {
+
+		Path file = localFile(resource);
+		if (file != null) return Channels.newInputStream(Files.newByteChannel(file));
+
+		URL url = ResourceReader.class.getResource(resource);		// Try for files included in jar
+		if (url == null) url = new URL(resource);					// or URL from web
+
+		URLConnection connection = url.openConnection();
+		connection.setConnectTimeout(TIMEOUT);
+		connection.setReadTimeout(TIMEOUT);
+
+		if (connection instanceof HttpURLConnection) {
+
+			int code = ((HttpURLConnection) connection).getResponseCode();
+
+			if (code == HttpURLConnection.HTTP_NOT_FOUND) throw new FileNotFoundException(resource + " not found");
+			if (code >= 400) throw new IOException(resource + " returned HTTP " + code);
+		}
+
+		return connection.getInputStream();
+	}
+
+
+	/** Wait before attempt (none before the first) */
+	private static void backoff(int attempt) throws IOException {
+
+		if (attempt == 0) return;
+
+		try {
+			Thread.sleep((long) BACKOFF << (attempt - 1));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting to retry", e);
+		}
+	}
+}
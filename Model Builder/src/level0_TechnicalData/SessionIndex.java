@@ -0,0 +1,180 @@
+package level0_TechnicalData;
+
+/**
+ * Trading day calendar of a TechnicalData object.  Built once from the time column, it gives the
+ * first period of each trading day, the number of periods in each day (half days included), and
+ * the day of week, so day based look ups do not parse time stamps or assume Variables.PIM periods
+ * per day.
+ *
+ * Days are numbered 0 -> days() - 1 in the order they appear in the data.
+ *
+ * @author Ryan Bell
+ */
+public final class SessionIndex {
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Class Variables
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	// Bytes used per period indexed (day of each period, day tables are far shorter)
+	static final int PERIOD_BYTES = 4;
+
+	private final int mDays;				// Number of trading days
+	private final int[] mDayStart;			// First index of each day (mDayStart[mDays] = size)
+	private final long[] mEpochDay;			// Days since 1970-01-01 of each day
+	private final int[] mDayOfPeriod;		// Day number of each period
+
+	private final TechnicalData mData;		// Data index was built from
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Constructor
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	/**
+	 * Build session index from time column of data (periods must be in ascending time order)
+	 * @param data Data to index
+	 */
+	public SessionIndex(TechnicalData data) {
+
+		int size = data.size();
+		long[] time = data.times();
+
+		mData = data;
+		mDayOfPeriod = new int[size];
+
+
+		// 1. Count days ///////////////////////////////////////////////////////////////////////////
+
+
+		int days = 0;
+		long previous = Long.MIN_VALUE;
+
+		for (int i = 0; i < size; i++) {
+			long day = TimeStamp.epochDayOf(time[i]);
+			if (day != previous) days++;
+			previous = day;
+		}
+
+
+		// 2. Record first index and date of each day //////////////////////////////////////////////
+
+
+		mDays = days;
+		mDayStart = new int[days + 1];
+		mEpochDay = new long[days];
+
+		int d = -1;
+		previous = Long.MIN_VALUE;
+
+		for (int i = 0; i < size; i++) {
+
+			long day = TimeStamp.epochDayOf(time[i]);
+
+			if (day != previous) {
+				d++;
+				mDayStart[d] = i;
+				mEpochDay[d] = day;
+				previous = day;
+			}
+
+			mDayOfPeriod[i] = d;
+		}
+
+		mDayStart[days] = size;
+	}
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Day Look Ups
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	/** @return Number of trading days */
+	public int days() {
+		return mDays;
+	}
+
+
+	/** @return Day number of period at index */
+	public int dayOf(int index) {
+		return mDayOfPeriod[index];
+	}
+
+
+	/** @return First index of day */
+	public int dayStart(int day) {
+		return mDayStart[day];
+	}
+
+
+	/** @return Last index of day */
+	public int dayEnd(int day) {
+		return mDayStart[day + 1] - 1;
+	}
+
+
+	/** @return Number of periods in day (fewer than Variables.PIM on half days) */
+	public int periodsInDay(int day) {
+		return mDayStart[day + 1] - mDayStart[day];
+	}
+
+
+	/** @return Position of period within its day (0 = first period of day) */
+	public int periodOfDay(int index) {
+		return index - mDayStart[mDayOfPeriod[index]];
+	}
+
+
+	/** @return Day of week of day (1 = Monday -> 7 = Sunday) */
+	public int dayOfWeek(int day) {
+		return (int) Math.floorMod(mEpochDay[day] + 3, 7L) + 1;		// 1970-01-01 was a Thursday
+	}
+
+
+	/** @return Date of day in YYYYMMDD format as a number */
+	public long date(int day) {
+		return TimeStamp.toDateKey(mEpochDay[day]);
+	}
+
+
+	/** @return Days since 1970-01-01 of day */
+	public long epochDay(int day) {
+		return mEpochDay[day];
+	}
+
+
+	/**
+	 * Same period of the day n trading days before index.  If that day is shorter (half day),
+	 * its last period is returned.
+	 * @param index Index of period
+	 * @param n Number of trading days back (0 = same day)
+	 * @return Index of period (-1 if data does not go back n days)
+	 */
+	public int daysAgo(int index, int n) {
+
+		int day = mDayOfPeriod[index] - n;
+		if (day < 0 || day >= mDays) return -1;
+
+		return mDayStart[day] + Math.min(periodOfDay(index), periodsInDay(day) - 1);
+	}
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Daily Aggregation
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	/**
+	 * Data with one period per trading day (see TechnicalData.resampled and Resampler.DAILY).  Each
+	 * day takes its time stamp and open from its first period, its close from its last period, the
+	 * high (low) from the max (min) of the day, and the volume from the sum of the day.
+	 * @return Daily TechnicalData
+	 */
+	public TechnicalData daily() {
+		return mData.resampled(Resampler.DAILY);
+	}
+}
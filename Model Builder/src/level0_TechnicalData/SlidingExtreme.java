@@ -0,0 +1,92 @@
+package level0_TechnicalData;
+
+/**
+ * Maximum (or minimum) of a sliding window of values in amortized O(1) per value.  Values are
+ * pushed in index order and kept in a monotonic deque: a value that can never be the extreme
+ * again (an older value beaten by a newer one) is dropped, so the front of the deque is always
+ * the extreme of the window.  Ties keep the newest value, which gives the same result as a
+ * "max < value" scan of the window.
+ *
+ * The deque is a ring of primitive arrays sized once for the window, so no objects are created
+ * per value.
+ *
+ * @author Ryan Bell
+ */
+public final class SlidingExtreme {
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Class Variables
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	private final boolean mMax;			// True = max, False = min
+	private final int[] mIndex;			// Index of each value in deque (ring buffer)
+	private final double[] mValue;		// Values in deque (ring buffer)
+	private int mHead;					// Position of front of deque in ring
+	private int mCount;					// Number of values in deque
+
+
+	/**
+	 * @param window Largest number of values in window at once
+	 * @param max True = track maximum, False = track minimum
+	 */
+	public SlidingExtreme(int window, boolean max) {
+		mMax = max;
+		mIndex = new int[Math.max(1, window) + 1];
+		mValue = new double[mIndex.length];
+	}
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Primary Methods for Class
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	/**
+	 * Add value to end of window
+	 * @param index Index of value (must be greater than every index already pushed)
+	 * @param value Value at index
+	 */
+	public void push(int index, double value) {
+
+		// Drop values the new value beats (they can no longer be the extreme)
+		while (mCount > 0) {
+			double last = mValue[position(mCount - 1)];
+			if (mMax ? last <= value : last >= value) mCount--;
+			else break;
+		}
+
+		int position = position(mCount);
+		mIndex[position] = index;
+		mValue[position] = value;
+		mCount++;
+	}
+
+
+	/**
+	 * Remove values that are before start of window
+	 * @param first Index of first value still in window
+	 */
+	public void evictBefore(int first) {
+
+		while (mCount > 0 && mIndex[mHead] < first) {
+			mHead = mHead + 1 == mIndex.length ? 0 : mHead + 1;
+			mCount--;
+		}
+	}
+
+
+	/** @return Extreme of values in window (window must not be empty) */
+	public double get() {
+		return mValue[mHead];
+	}
+
+
+	/** @return Position in ring of i'th value in deque */
+	private int position(int i) {
+
+		int position = mHead + i;
+		return position >= mIndex.length ? position - mIndex.length : position;
+	}
+}
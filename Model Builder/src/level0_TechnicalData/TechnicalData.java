@@ -1,21 +1,28 @@
 package level0_TechnicalData;
 
-import java.io.BufferedReader;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
-import model.Read;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import model.Catalog;
 import model.Variables;
-import level0_TechnicalData.WebInputStream;
 
 /**
  * Class used to convert saved data (text file) to usable format.
- * Data is represented as an ArrayList of TechnicalNodes.  Technical nodes
- * store { Symbol, Time Stamp, Open, High, Low, Close, Volume }
+ * Data is stored as columns of primitive arrays (structure of arrays) so that indicator
+ * calculations stream through contiguous memory.  Columns store { Time Stamp, Open, High,
+ * Low, Close, Volume } where the time stamp is kept as epoch minutes (see TimeStamp).
+ *
+ * Existing periods never change.  New periods can only be appended (see append), which
+ * notifies registered TechnicalDataListeners so they can update incrementally.
  * 
  * @author Ryan Bell
  */
-public class TechnicalData {
+public class TechnicalData implements BarSeries {
 	
 	
 	////////////////////////////////////////////////////////////////////////////////////////////////
@@ -23,9 +30,40 @@ public class TechnicalData {
 	////////////////////////////////////////////////////////////////////////////////////////////////
 	
 	
+	// Most compressed views kept per data object (least recently used view is dropped first)
+	private static final int MAX_COMPRESSED_VIEWS = 4;
+
 	private String mSymbol;						// Symbol that identifies stock or ETF
-	private int mSize;							// Size of list
-	private ArrayList<TechnicalNode> mList;		// List of TechnicalNodes containing stock data
+	private volatile int mSize;					// Number of periods stored in columns (written last when appending)
+
+	private long[] mTime;						// Time stamp of each period (epoch minutes)
+	private double[] mOpen;						// Open price of each period
+	private double[] mHigh;						// High price of each period
+	private double[] mLow;						// Low price of each period
+	private double[] mClose;					// Close price of each period
+	private long[] mVolume;						// Volume of each period
+	private int mOffset;						// Index of first period in symbol's full history (see offset)
+
+	private volatile TimeStampIndex mIndex;		// Time stamp look up (built on first use)
+	private volatile SessionIndex mSession;		// Trading day calendar (built on first use)
+	private volatile RangeIndex mRange;			// Range max / min look up (built on first use)
+
+	// Compressed views of this data by combining factor (built on first use, see compressed)
+	private final LinkedHashMap<Integer, TechnicalData> mCompressed = new LinkedHashMap<Integer, TechnicalData>(8, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+		protected boolean removeEldestEntry(Map.Entry<Integer, TechnicalData> eldest) {
+			return size() > MAX_COMPRESSED_VIEWS;
+		}
+	};
+
+	private CompressWindow mWindow;				// Source periods combined into last period (compressed views only)
+	private TechnicalData mSource;				// Data this compressed view or resampled bars was built from (see grown)
+
+	// Calendar aligned bars of this data by time frame (built on first use, see resampled)
+	private final ConcurrentHashMap<Integer, TechnicalData> mResampled = new ConcurrentHashMap<Integer, TechnicalData>();
+
+	// Notified after periods are appended
+	private final CopyOnWriteArrayList<TechnicalDataListener> mListeners = new CopyOnWriteArrayList<TechnicalDataListener>();
 
 
 
@@ -42,11 +80,23 @@ public class TechnicalData {
 	 */
 	public TechnicalData(String symbol) { 
 
+		this(symbol, Variables.YAHOO_Prefix);
+	}
+
+
+	/**
+	 * Constructor used to create TechnicalData list of daily data from quote pages at quoteURL
+	 * (e.g. a local stand-in server)
+	 * @param symbol Stock or ETF to invest in
+	 * @param quoteURL URL that symbol's quote page is under (Variables.YAHOO_Prefix)
+	 */
+	TechnicalData(String symbol, String quoteURL) {
+
+		this(symbol, 0);
+
 		try {
 
-			mSymbol = symbol;
-			mList = createYahooList(symbol);
-			if (mList != null) mSize = mList.size();
+			addAll(createYahooList(quoteURL, symbol));
 
 		} catch (FileNotFoundException e) {
 			System.out.println(symbol + " file not found");
@@ -61,23 +111,103 @@ public class TechnicalData {
 	 * @param list ArrayList of Technical Nodes
 	 */
 	public TechnicalData(String symbol, ArrayList<TechnicalNode> list) {
-		mSymbol = symbol;
-		mList = list;
-		
-		if (mList != null) mSize = mList.size();
+
+		this(symbol, list == null ? 0 : list.size());
+		addAll(list);
 		
 	}
 
+
+	/**
+	 * Constructor used when columns are already constructed.  Arrays are used directly (not copied).
+	 * @param symbol Stock or ETF identifier
+	 * @param time Time stamps in epoch minutes
+	 * @param open Open prices
+	 * @param high High prices
+	 * @param low Low prices
+	 * @param close Close prices
+	 * @param volume Volumes
+	 * @param size Number of periods used in each array
+	 */
+	public TechnicalData(String symbol, long[] time, double[] open, double[] high, double[] low, double[] close, long[] volume, int size) {
+
+		mSymbol = symbol;
+		mTime   = time;
+		mOpen   = open;
+		mHigh   = high;
+		mLow    = low;
+		mClose  = close;
+		mVolume = volume;
+		mSize   = size;
+	}
+
+
+	/** Create empty columns with room for capacity periods */
+	TechnicalData(String symbol, int capacity) {
+
+		this(symbol, new long[capacity], new double[capacity], new double[capacity], 
+				new double[capacity], new double[capacity], new long[capacity], 0);
+	}
+
+
+	/** Add every node in list to the end of the columns */
+	private void addAll(ArrayList<TechnicalNode> list) {
+
+		if (list == null) return;
+		for (TechnicalNode node : list) add(node);
+	}
+
+
+	/** Add node to the end of the columns */
+	void add(TechnicalNode node) {
+
+		add(TimeStamp.parse(node.getTimeStamp()), node.getOpen(), node.getHigh(), node.getLow(), node.getClose(), node.getVolume());
+	}
+
+
+	/** Add single period to the end of the columns (doubles capacity when full) */
+	void add(long time, double open, double high, double low, double close, long volume) {
+
+		if (mSize == mTime.length) grow(Math.max(16, mSize * 2));
+
+		mTime[mSize]   = time;
+		mOpen[mSize]   = open;
+		mHigh[mSize]   = high;
+		mLow[mSize]    = low;
+		mClose[mSize]  = close;
+		mVolume[mSize] = volume;
+		mSize++;
+	}
+
+
+	/** Shrink columns to size (reads past the last period fail instead of returning 0) */
+	void trim() {
+
+		if (mTime.length != mSize) grow(mSize);
+	}
+
+
+	/** Copy columns into arrays of new capacity */
+	private void grow(int capacity) {
+
+		mTime   = Arrays.copyOf(mTime, capacity);
+		mOpen   = Arrays.copyOf(mOpen, capacity);
+		mHigh   = Arrays.copyOf(mHigh, capacity);
+		mLow    = Arrays.copyOf(mLow, capacity);
+		mClose  = Arrays.copyOf(mClose, capacity);
+		mVolume = Arrays.copyOf(mVolume, capacity);
+	}
+
 	
 	////////////////////////////////////////////////////////////////////////////////////////////////
 	// Create List from Yahoo End of Day Data
 	////////////////////////////////////////////////////////////////////////////////////////////////
 	
 	
-	private static ArrayList<TechnicalNode> createYahooList(String symbol) throws IOException {
+	private static ArrayList<TechnicalNode> createYahooList(String quoteURL, String symbol) throws IOException {
 		
-		String url = Variables.YAHOO_Prefix + symbol + Variables.YAHOO_Suffix;
-		String data = new WebInputStream(url).readAll();
+		String url = quoteURL + symbol + Variables.YAHOO_Suffix;
+		String data = ResourceReader.readAll(url);
 		
 		System.out.println(data);
 		
@@ -91,46 +221,73 @@ public class TechnicalData {
 
 	
 	/**
-	 * Method used as 'constructor' to get list from file
+	 * Method used as 'constructor' to get list from file.  Data is loaded from the symbol's
+	 * binary bar file (see BarFile).  The ETFData text file is imported into a new bar file
+	 * if the bar file does not exist yet or the text file has been changed since.
 	 * @param symbol Stock symbol
 	 * @return TechnicalData object
 	 */
 	public static TechnicalData getFile(String symbol) throws FileNotFoundException, IOException {
 		
-		return new TechnicalData(symbol, getList(symbol));
+		if (BarFile.isStale(symbol)) {
+
+			TechnicalData data = getTextFile(symbol);
+
+			if (data.size() > 0) {
+				BarFile.write(data, BarFile.path(symbol));
+				Catalog.putSymbol(data);
+			}
+
+			return data;
+		}
+
+		return BarFile.open(BarFile.path(symbol)).load();
 		
 	}
 
 	
 	/**
-	 * Method called in constructor to create technical data list
-	 * @param symbol Stock or ETF to invest in
-	 * @return ArrayList of technical analysis data stored in TechnicalNodes
-	 * @throws FileNotFoundException
-	 * @throws IOException
+	 * Load only the periods needed for start -> end plus lookback periods before start.  Data is
+	 * read from the symbol's yearly partitions (see BarPartitions), which are rebuilt from the full
+	 * file first if they do not exist yet or the full file has been changed since.
+	 * @param symbol Stock symbol
+	 * @param start Time stamp of first period in YYYYMMDDhhmm format (can be shortened)
+	 * @param end Time stamp of last period in YYYYMMDDhhmm format (can be shortened)
+	 * @param lookback Periods before start that will be read
+	 * @return TechnicalData object (may start before start and end after end)
 	 */
-	private static ArrayList<TechnicalNode> getList(String symbol) throws FileNotFoundException, IOException {
+	public static TechnicalData getFile(String symbol, String start, String end, int lookback) throws FileNotFoundException, IOException {
 
-		BufferedReader reader = Read.getReader(Variables.ETFDATA+symbol+".txt");
+		if (BarPartitions.isStale(symbol)) {
 
-		if (reader == null) {
-			System.out.println("File not found");
-			return null;
+			TechnicalData data = getFile(symbol);
+			if (data.size() == 0) return data;
+
+			BarPartitions.write(data);
 		}
 
-		ArrayList<TechnicalNode> data = new ArrayList<TechnicalNode>();
-		TechnicalNode node;
+		return BarPartitions.open(symbol).load(start, end, lookback);
+	}
 
-		String line;
 
-		while ((line = reader.readLine()) != null) {		// Read line from file
+	/**
+	 * Method used to import technical data list from the ETFData text file.  Symbols without a
+	 * text file are read from their compressed archive (see BarArchive) if there is one.
+	 * @param symbol Stock or ETF to invest in
+	 * @return TechnicalData columns built from the lines of the symbol's text file
+	 * @throws FileNotFoundException
+	 * @throws IOException
+	 */
+	static TechnicalData getTextFile(String symbol) throws FileNotFoundException, IOException {
 
-			node = parseLine(line);							// Create TechnicalNode from file
-			if (node != null) data.add(node);				// Add TechnicalNode to list
+		TechnicalData data = BarParser.parseFile(symbol, Variables.ETFDATA+symbol+".txt");
 
-		}
+		if (data == null && BarArchive.exists(symbol)) data = BarArchive.read(BarArchive.path(symbol));
 
-		reader.close();
+		if (data == null) {
+			System.out.println("File not found");
+			return new TechnicalData(symbol, 0);
+		}
 
 		return data;
 	}
@@ -194,79 +351,353 @@ public class TechnicalData {
 
 
 	/**
-	 * Used to modify technical data nodes by combining values
+	 * Used to modify technical data nodes by combining values.  Compressed data is cached by the
+	 * data object (see compressed), so repeated calls with the same cf do not rebuild it.
 	 * 
 	 * @param data Original TechnicalData list
 	 * @param cf Combining factor for determining period to calculate candlesticks for (Period = 5 x cf)
 	 * @return TechnicalData object that is same size of input parameter that is "compressed" by cf value
 	 */
 	public static TechnicalData modifyTechnicalData(TechnicalData data, int cf) {
+		return data.compressed(cf);
+	}
 
 
-		// 1. Returns initial technical data input if no modifications required ////////////////////
+	/**
+	 * Shared view of this data where each period combines itself with the cf - 1 periods before it.
+	 * Views are built on first use, extended when periods are appended, and must be treated as read
+	 * only.  Only the MAX_COMPRESSED_VIEWS most recently used views are cached, so a view that is
+	 * dropped stops being extended: look the view up again rather than holding it across appends.
+	 * @param cf Combining factor (1 or less returns this object)
+	 * @return Compressed data of the same size
+	 */
+	public TechnicalData compressed(int cf) {
 
+		if (cf <= 1) return this;
 
-		if (cf <= 1) return data;
+		TechnicalData view;
+		boolean built = false;
 
+		// Build while holding lock so no period can be appended between building and caching
+		synchronized (this) {
 
-		// 2. Create variables /////////////////////////////////////////////////////////////////////
+			view = mCompressed.get(cf);
 
+			if (view == null) {
+				view = compress(cf);
+				mCompressed.put(cf, view);
+				built = true;
+			}
+		}
 
-		boolean first;
-		String timeStamp = data.timeStamp(0);
-		double open      = data.open(0);
-		double high      = data.high(0);
-		double low       = data.low(0);
-		double close     = data.close(0);
-		int volume       = data.volume(0);
-		ArrayList<TechnicalNode> list = new ArrayList<TechnicalNode>();
+		if (built) grown();
+		return view;
+	}
 
 
-		// 3. Create modified data set /////////////////////////////////////////////////////////////
+	/**
+	 * Shared calendar aligned bars of this data (see Resampler).  Bars are built once per time
+	 * frame, rebuilt after periods are appended, and must be treated as read only.
+	 * @param timeFrame Length of each bar in minutes (Resampler.DAILY or Resampler.WEEKLY for day and week bars)
+	 * @return Resampled data
+	 * @throws IllegalArgumentException If time frame is not supported
+	 */
+	public TechnicalData resampled(int timeFrame) {
+		return resampled(new int[] {timeFrame})[0];
+	}
 
 
-		for (int i = 0; i < data.size(); i++) {
+	/**
+	 * Shared calendar aligned bars of this data for several time frames.  Time frames that are not
+	 * cached yet are all built in one pass over the data.
+	 * @param timeFrames Length of each bar in minutes
+	 * @return Resampled data in the same order as timeFrames
+	 * @throws IllegalArgumentException If a time frame is not supported
+	 */
+	public TechnicalData[] resampled(int... timeFrames) {
 
-			// a. Copy technical data for nodes that don't have enough trailing for cf /////////////
+		TechnicalData[] bars = new TechnicalData[timeFrames.length];
+		int missing = 0;
 
-			if (i < cf - 1) {
+		for (int f = 0; f < timeFrames.length; f++) {
+			bars[f] = mResampled.get(timeFrames[f]);
+			if (bars[f] == null) missing++;
+		}
 
-				list.add(data.get(i));
+		if (missing == 0) return bars;
 
-			} 
+		// Build while holding lock so no period can be appended between building and caching
+		synchronized (this) {
 
-			// b. Create compressed technical data nodes ///////////////////////////////////////////
+			int[] build = new int[missing];
+			int n = 0;
 
-			else {
+			for (int f = 0; f < timeFrames.length; f++) {
+				bars[f] = mResampled.get(timeFrames[f]);
+				if (bars[f] == null) build[n++] = timeFrames[f];
+			}
 
-				first = false;	// Reset variable
+			TechnicalData[] built = Resampler.resample(this, Arrays.copyOf(build, n));
 
-				for (int j = i - cf + 1; j <= i; j++) {
+			for (int b = 0; b < n; b++) {
+				built[b].mSource = this;
+				mResampled.putIfAbsent(build[b], built[b]);
+			}
 
-					if (first) {
+			for (int f = 0; f < timeFrames.length; f++) bars[f] = mResampled.get(timeFrames[f]);
+		}
 
-						// Update values that can change in "compression range"
-						if (high < data.high(j)) high = data.high(j);
-						if (low > data.low(j)) low = data.low(j);
-						volume = volume + data.volume(j);
+		grown();
+		return bars;
+	}
 
-					} else {
 
-						// Set initial values
-						timeStamp = data.timeStamp(j);
-						open      = data.open(j);
-						high      = data.high(j);
-						low       = data.low(j);
-						close     = data.close(j);
-						volume    = data.volume(j);
+	/**
+	 * Bar of resampled data that a period belongs to
+	 * @param index Index of period in this data
+	 * @param timeFrame Length of each bar in minutes (see resampled)
+	 * @return Index of bar in resampled(timeFrame)
+	 */
+	public int resampledIndex(int index, int timeFrame) {
 
-						first = true;
-					}
-				}
-				list.add(new TechnicalNode(timeStamp, open, high, low, close, volume));
+		TechnicalData bars = resampled(timeFrame);
+
+		// Last bar stamped at or before period
+		int bar = Arrays.binarySearch(bars.mTime, 0, bars.mSize, mTime[index]);
+		return bar >= 0 ? bar : -bar - 2;
+	}
+
+
+	/**
+	 * Build compressed data in O(n).  Periods with fewer than cf - 1 periods before them are copied.
+	 * Other periods take their time stamp, open, and close from the first period in range, the
+	 * high (low) from the max (min) of the range, and the volume from the sum of the range.
+	 * @param cf Combining factor
+	 * @return New TechnicalData object
+	 */
+	private TechnicalData compress(int cf) {
+
+
+		// 1. Create variables /////////////////////////////////////////////////////////////////////
+
+
+		int n = mSize;
+
+		long[] time    = Arrays.copyOf(mTime, n);
+		double[] open  = Arrays.copyOf(mOpen, n);
+		double[] high  = Arrays.copyOf(mHigh, n);
+		double[] low   = Arrays.copyOf(mLow, n);
+		double[] close = Arrays.copyOf(mClose, n);
+		long[] volume  = Arrays.copyOf(mVolume, n);
+
+
+		// 2. Combine ranges (range index and prefix sums answer each range in constant time) //////
+
+
+		RangeIndex range = rangeIndex();
+
+		long[] sum = new long[n + 1];
+		for (int i = 0; i < n; i++) sum[i + 1] = sum[i] + mVolume[i];
+
+		for (int i = cf - 1; i < n; i++) {
+
+			int first = i - cf + 1;
+
+			time[i]   = mTime[first];
+			open[i]   = mOpen[first];
+			high[i]   = range.maxHigh(first, i);
+			low[i]    = range.minLow(first, i);
+			close[i]  = mClose[first];
+			volume[i] = sum[i + 1] - sum[first];
+		}
+
+		TechnicalData view = new TechnicalData(mSymbol, time, open, high, low, close, volume, n);
+		view.mOffset = mOffset;
+		view.mWindow = new CompressWindow(this, cf);
+		view.mSource = this;
+		return view;
+	}
+
+
+	/**
+	 * Bytes this data uses now: its columns, the look up indexes it has built, and its cached
+	 * compressed views and resampled bars (each weighed the same way).  Grows as indexes and views
+	 * are built on first use (listeners are told, see footprintChanged) and shrinks when periods
+	 * are appended (indexes and resampled bars are dropped until they are used again).
+	 * @return Estimated bytes (columns are counted at their current capacity)
+	 */
+	long footprint() {
+
+		int size = mSize;
+		long bytes = (long) BarFile.ROW_BYTES * mTime.length;
+
+		if (mIndex != null)   bytes += (long) TimeStampIndex.PERIOD_BYTES * size;
+		if (mSession != null) bytes += (long) SessionIndex.PERIOD_BYTES * size;
+		if (mRange != null)   bytes += (long) RangeIndex.PERIOD_BYTES * size;
+
+		ArrayList<TechnicalData> views;
+		synchronized (this) { views = new ArrayList<TechnicalData>(mCompressed.values()); }
+
+		for (TechnicalData view : views) bytes += view.footprint();
+		for (TechnicalData bars : mResampled.values()) bytes += bars.footprint();
+
+		return bytes;
+	}
+
+
+	/**
+	 * Tell listeners of this data, and of the data it was built from, that its footprint grew.
+	 * Indexes built while the lock is held (e.g. while compressing) are reported by the method
+	 * holding it once it is released, so listeners never run under the lock.
+	 */
+	private void grown() {
+
+		if (Thread.holdsLock(this)) return;
+
+		for (TechnicalDataListener listener : mListeners) listener.footprintChanged(this);
+
+		TechnicalData source = mSource;
+		if (source != null) source.grown();
+	}
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Append Periods
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	/**
+	 * Append period to end of data.  Columns grow in place (capacity doubles when full), cached
+	 * compressed views (and their own views) are extended, and listeners of this data and of each
+	 * extended view are told the index of the new period.  Readers on other threads see the period
+	 * once size() includes it.
+	 * @param time Time stamp in epoch minutes (must be after the last period)
+	 * @param open Open price
+	 * @param high High price
+	 * @param low Low price
+	 * @param close Close price
+	 * @param volume Volume
+	 * @throws IllegalArgumentException If time is not after the last period
+	 */
+	public void append(long time, double open, double high, double low, double close, long volume) {
+
+		int index;
+		ArrayList<TechnicalData> appended = new ArrayList<TechnicalData>();
+
+		synchronized (this) {
+
+			if (mSize > 0 && time <= mTime[mSize - 1])
+				throw new IllegalArgumentException(mSymbol + ": " + TimeStamp.format(time) + " is not after " + timeStamp(mSize - 1));
+
+			add(time, open, high, low, close, volume);
+			index = mSize - 1;
+
+			appended(index, appended);
+		}
+
+		// Listeners are called without holding locks (views are the same size, so share the index)
+		for (TechnicalData data : appended)
+			for (TechnicalDataListener listener : data.mListeners) listener.periodsAppended(data, index, index);
+	}
+
+
+	/**
+	 * Append period to end of data
+	 * @param node Period to append (time stamp in YYYYMMDDhhmm format)
+	 * @throws IllegalArgumentException If time stamp is not after the last period
+	 */
+	public void append(TechnicalNode node) {
+		append(TimeStamp.parse(node.getTimeStamp()), node.getOpen(), node.getHigh(), node.getLow(), node.getClose(), node.getVolume());
+	}
+
+
+	/**
+	 * Clear caches after a period is appended and extend compressed views by the same period
+	 * (must hold lock)
+	 * @param index Index of appended period
+	 * @param appended Collects this data and every extended view (to notify listeners)
+	 */
+	private void appended(int index, ArrayList<TechnicalData> appended) {
+
+		// Indexes and bars are rebuilt on next look up, compressed views only need the new period
+		mIndex = null;
+		mSession = null;
+		mRange = null;
+		mResampled.clear();
+		appended.add(this);
+
+		for (TechnicalData view : mCompressed.values()) view.appendCompressed(this, index, appended);
+	}
+
+
+	/**
+	 * Add compressed period for source index to this view (same rules as compress).  The window
+	 * of source periods rolls forward one period, so each append takes amortized constant time.
+	 */
+	private synchronized void appendCompressed(TechnicalData source, int index, ArrayList<TechnicalData> appended) {
+
+		CompressWindow window = mWindow;
+		window.push(source, index);
+
+		if (index < window.mCf - 1) {
+			add(source.mTime[index], source.mOpen[index], source.mHigh[index], source.mLow[index], source.mClose[index], source.mVolume[index]);
+		} else {
+			int first = index - window.mCf + 1;
+			add(source.mTime[first], source.mOpen[first], window.mHigh.get(), window.mLow.get(), source.mClose[first], window.mVolume);
+		}
+
+		appended(index, appended);
+	}
+
+
+	/**
+	 * Max high, min low, and volume sum of the last cf source periods.  Kept by a compressed view
+	 * so an appended period is combined without scanning the cf periods again.
+	 */
+	private static final class CompressWindow {
+
+		private final int mCf;					// Combining factor
+		private final SlidingExtreme mHigh;		// Max high of window
+		private final SlidingExtreme mLow;		// Min low of window
+		private long mVolume;					// Volume sum of window
+
+		/** Fill window with the last cf periods of source */
+		CompressWindow(TechnicalData source, int cf) {
+
+			mCf = cf;
+			mHigh = new SlidingExtreme(cf, true);
+			mLow = new SlidingExtreme(cf, false);
+
+			for (int i = Math.max(0, source.mSize - cf); i < source.mSize; i++) {
+				mHigh.push(i, source.mHigh[i]);
+				mLow.push(i, source.mLow[i]);
+				mVolume += source.mVolume[i];
 			}
 		}
-		return new TechnicalData(data.mSymbol, list);
+
+		/** Move window forward to end at source index */
+		void push(TechnicalData source, int index) {
+
+			mHigh.push(index, source.mHigh[index]);
+			mLow.push(index, source.mLow[index]);
+			mHigh.evictBefore(index - mCf + 1);
+			mLow.evictBefore(index - mCf + 1);
+
+			mVolume += source.mVolume[index];
+			if (index >= mCf) mVolume -= source.mVolume[index - mCf];
+		}
+	}
+
+
+	/** Register listener to be notified when periods are appended */
+	public void addListener(TechnicalDataListener listener) {
+		mListeners.addIfAbsent(listener);
+	}
+
+
+	/** Stop notifying listener */
+	public void removeListener(TechnicalDataListener listener) {
+		mListeners.remove(listener);
 	}
 
 
@@ -274,17 +705,36 @@ public class TechnicalData {
 	public int size() { return mSize; }
 
 
+	// Return symbol of TechnicalData list
+	public String symbol() { return mSymbol; }
+
+
+	/**
+	 * Index of this data's first period in the symbol's full history.  Data loaded by range (see
+	 * BarPartitions) starts part way through the history, so indicators that group periods by
+	 * index (e.g. Candlestick) add this to stay aligned with full history results.
+	 * @return Number of periods in full history before index 0 (0 when full history is loaded)
+	 */
+	public int offset() { return mOffset; }
+
+
+	/** Set index of first period in symbol's full history (see offset) */
+	void setOffset(int offset) { mOffset = offset; }
+
+
 	// Print TechnicalData list
-	public void print() { for (TechnicalNode node : mList) node.print(); }
+	public void print() { for (int i = 0; i < mSize; i++) get(i).print(); }
 
 
 	/**
-	 * Get specified node by index in list
+	 * Get specified node by index in list.  Node is a copy of the column values (changing it
+	 * does not change the TechnicalData list).
 	 * @param i Index in TechnicalData list
 	 * @return Specified node
 	 */
 	public TechnicalNode get(int index) { 
-		if (index >= 0 && index < mList.size()) return mList.get(index);
+		if (index >= 0 && index < mSize) 
+			return new TechnicalNode(timeStamp(index), mOpen[index], mHigh[index], mLow[index], mClose[index], volume(index));
 		else return null;
 	}
 
@@ -295,7 +745,17 @@ public class TechnicalData {
 	 * @return Time stamp at provided index
 	 */
 	public String timeStamp(int index) {
-		return this.get(index).getTimeStamp();
+		return TimeStamp.format(mTime[index]);
+	}
+
+
+	/**
+	 * Helper method used for cleaner code in indicator methods
+	 * @param index Index in TechnicalNode data set
+	 * @return Time stamp (epoch minutes) at provided index
+	 */
+	public long time(int index) {
+		return mTime[index];
 	}
 
 
@@ -305,7 +765,7 @@ public class TechnicalData {
 	 * @return Open value at provided index
 	 */
 	public double open(int index) {
-		return this.get(index).getOpen();
+		return mOpen[index];
 	}
 
 
@@ -315,7 +775,7 @@ public class TechnicalData {
 	 * @return High value at provided index
 	 */
 	public double high(int index) {
-		return this.get(index).getHigh();
+		return mHigh[index];
 	}
 
 
@@ -325,7 +785,7 @@ public class TechnicalData {
 	 * @return Low value at provided index
 	 */
 	public double low(int index) {
-		return this.get(index).getLow();
+		return mLow[index];
 	}
 
 
@@ -335,7 +795,7 @@ public class TechnicalData {
 	 * @return Close value at provided index
 	 */
 	public double close(int index) { 
-		return this.get(index).getClose();
+		return mClose[index];
 	}
 
 
@@ -345,10 +805,27 @@ public class TechnicalData {
 	 * @return Volume at provided index
 	 */
 	public int volume(int index) {
-		return this.get(index).getVolume();
+		return (int) mVolume[index];
 	}
 
 
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Direct Column Access for Indicator Kernels
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	// Backing arrays are returned without copying.  Only indexes [0, size()) are valid and
+	// values must not be modified by the caller.  Appending can replace the arrays, so call
+	// size() before getting them.
+
+	public long[] times()     { return mTime;   }
+	public double[] opens()   { return mOpen;   }
+	public double[] highs()   { return mHigh;   }
+	public double[] lows()    { return mLow;    }
+	public double[] closes()  { return mClose;  }
+	public long[] volumes()   { return mVolume; }
+
+
 	/**
 	 * Retrieve designated TechnicalNode index in data set using time stamp
 	 * @param timeStamp Time in YYYYMMDDhhmm format (can be shortened)
@@ -356,25 +833,70 @@ public class TechnicalData {
 	 * 	Will return nodes with partial timeStamp (eg. 201512 return first node in December, 2015)
 	 */
 	public int getIndexByTimeStamp(String timeStamp) {
+		return timeStampIndex().indexOf(timeStamp);
+	}
+
+
+	/** @return Time stamp index of data (built on first call and shared afterwards) */
+	public TimeStampIndex timeStampIndex() {
+
+		TimeStampIndex index = mIndex;
+
+		if (index == null) {
+
+			boolean built = false;
+
+			synchronized (this) {
+				if (mIndex == null) { mIndex = new TimeStampIndex(mTime, mSize); built = true; }
+				index = mIndex;
+			}
+
+			if (built) grown();
+		}
+
+		return index;
+	}
+
+
+	/** @return Range max / min index of data (built on first call and shared afterwards) */
+	public RangeIndex rangeIndex() {
+
+		RangeIndex range = mRange;
+
+		if (range == null) {
+
+			boolean built = false;
+
+			synchronized (this) {
+				if (mRange == null) { mRange = new RangeIndex(this); built = true; }
+				range = mRange;
+			}
+
+			if (built) grown();
+		}
+
+		return range;
+	}
 
-		String dataTS = get(0).getTimeStamp();	// Time stamp from TechnicalData
 
-		// Goal: Match partial timeStamp with dataTS
-		for (int i = 0; i < size(); i++) {
+	/** @return Trading day calendar of data (built on first call and shared afterwards) */
+	public SessionIndex sessionIndex() {
 
-			// 1. Update data time stamp to next index
-			dataTS = get(i).getTimeStamp();
+		SessionIndex session = mSession;
 
-			// 2. Determine if dataTS (all or partial) matches all of timeStamp
-			for (int j = 0; j < timeStamp.length() && dataTS.charAt(j) == timeStamp.charAt(j); j++) {
+		if (session == null) {
 
-				if (j >= timeStamp.length()-1) return i;	// Match found
+			boolean built = false;
 
+			synchronized (this) {
+				if (mSession == null) { mSession = new SessionIndex(this); built = true; }
+				session = mSession;
 			}
 
+			if (built) grown();
 		}
 
-		return -1;	// No match in data set 
+		return session;
 	}
 
 
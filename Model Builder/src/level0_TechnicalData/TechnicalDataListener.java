@@ -0,0 +1,30 @@
+package level0_TechnicalData;
+
+/**
+ * Notified when periods are appended to a TechnicalData object (see TechnicalData.append).
+ * Lets indicator and scoring code update only the new periods instead of the full history.
+ * Caches can also follow how much memory the data uses (see footprintChanged).
+ *
+ * @author Ryan Bell
+ */
+public interface TechnicalDataListener {
+
+
+	/**
+	 * Called after periods are appended.  Periods before first are unchanged.
+	 * Called on the appending thread, after the new periods are visible to every reader.
+	 * @param data Data that periods were appended to
+	 * @param first Index of first new period
+	 * @param last Index of last new period
+	 */
+	void periodsAppended(TechnicalData data, int first, int last);
+
+
+	/**
+	 * Called after data (or one of its compressed views or resampled bars) builds a look up
+	 * index, compressed view, or resampled bars, so TechnicalData.footprint has grown.  Called
+	 * without holding the data's lock.
+	 * @param data Data whose footprint changed
+	 */
+	default void footprintChanged(TechnicalData data) { }
+}
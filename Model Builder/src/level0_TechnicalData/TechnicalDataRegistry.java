@@ -0,0 +1,340 @@
+package level0_TechnicalData;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import model.Variables;
+
+/**
+ * Process-wide cache of TechnicalData objects.  Each symbol is loaded from file once and the
+ * same instance is handed to every thread that asks for it.  Existing periods of a TechnicalData
+ * never change (append only adds periods after them and publishes them once they are written), so
+ * shared instances are safe to read from any thread.
+ *
+ * Least recently used symbols are evicted once the cached data weighs more than
+ * Variables.mDataCacheBytes.  An entry weighs what its data uses now (see TechnicalData.footprint:
+ * columns plus only the indexes, compressed views, and resampled bars already built).  The
+ * registry listens to every cached data and re-weighs its entry when one of these is built or
+ * periods are appended, evicting older entries if the total goes over budget.
+ *
+ * @author Ryan Bell
+ */
+public final class TechnicalDataRegistry {
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Class Variables
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	private static final Object mLock = new Object();		// Guards every variable below
+
+	// Loaded symbols (and symbol ranges, see get) in least -> most recently used order
+	private static final LinkedHashMap<String, Entry> mEntries = new LinkedHashMap<String, Entry>(64, 0.75f, true);
+
+	// Symbols and ranges currently being loaded (other threads wait on the same load)
+	private static final HashMap<String, FutureTask<TechnicalData>> mLoading = new HashMap<String, FutureTask<TechnicalData>>();
+
+	private static long mWeight;			// Bytes used by cached entries (sum of entry weights)
+	private static long mHits;				// Requests answered by cached or in-progress load
+	private static long mMisses;			// Requests that loaded symbol from file
+	private static long mEvictions;			// Symbols removed to stay under budget
+
+	// Re-weighs entry of cached data when it grows (registered on every cached data)
+	private static final TechnicalDataListener mWeigher = new TechnicalDataListener() {
+
+		@Override
+		public void periodsAppended(TechnicalData data, int first, int last) {
+			reweigh(data);
+		}
+
+		@Override
+		public void footprintChanged(TechnicalData data) {
+			reweigh(data);
+		}
+	};
+
+
+	private TechnicalDataRegistry() { }
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Primary Method for Class
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	/**
+	 * Get shared TechnicalData for symbol, loading it from file if it is not cached
+	 * @param symbol Stock or ETF identifier
+	 * @return Shared TechnicalData (empty if file could not be loaded)
+	 */
+	public static TechnicalData get(final String symbol) {
+		return get(symbol, symbol, () -> TechnicalData.getFile(symbol));
+	}
+
+
+	/**
+	 * Get shared TechnicalData that covers start -> end plus lookback periods before start.  If the
+	 * symbol's full data is already cached it is returned, otherwise only the yearly partitions the
+	 * range needs are loaded (see BarPartitions) and cached under the range.
+	 * @param symbol Stock or ETF identifier
+	 * @param start Time stamp of first period in YYYYMMDDhhmm format (can be shortened)
+	 * @param end Time stamp of last period in YYYYMMDDhhmm format (can be shortened)
+	 * @param lookback Periods before start that will be read
+	 * @return Shared TechnicalData (empty if file could not be loaded)
+	 */
+	public static TechnicalData get(final String symbol, final String start, final String end, final int lookback) {
+
+		synchronized (mLock) {
+
+			Entry entry = mEntries.get(symbol);
+
+			if (entry != null) {
+				mHits++;
+				return entry.mData;
+			}
+		}
+
+		return get(symbol + " " + start + "-" + end + " +" + lookback, symbol, () -> TechnicalData.getFile(symbol, start, end, lookback));
+	}
+
+
+	/**
+	 * Get symbol's full data only if it is already cached (nothing is loaded)
+	 * @param symbol Stock or ETF identifier
+	 * @return Shared TechnicalData, or null if symbol's full data is not cached
+	 */
+	public static TechnicalData peek(String symbol) {
+
+		synchronized (mLock) {
+			Entry entry = mEntries.get(symbol);
+			return entry == null ? null : entry.mData;
+		}
+	}
+
+
+	/**
+	 * Return cached data for key, or load it once while other threads asking for the same key wait
+	 * @param key Cache key (symbol, or symbol and range)
+	 * @param symbol Stock or ETF identifier
+	 * @param file Reads data from file
+	 * @return Shared TechnicalData (empty if file could not be loaded)
+	 */
+	private static TechnicalData get(String key, String symbol, Callable<TechnicalData> file) {
+
+
+		// 1. Return cached data or join load already in progress //////////////////////////////////
+
+
+		FutureTask<TechnicalData> task;
+		boolean loader = false;
+
+		synchronized (mLock) {
+
+			Entry entry = mEntries.get(key);
+
+			if (entry != null) {
+				mHits++;
+				return entry.mData;
+			}
+
+			task = mLoading.get(key);
+
+			if (task == null) {
+				task = new FutureTask<TechnicalData>(file);
+				mLoading.put(key, task);
+				mMisses++;
+				loader = true;
+			} else {
+				mHits++;
+			}
+		}
+
+
+		// 2. Load data outside of lock (only thread that created task) ////////////////////////////
+
+
+		if (loader) {
+
+			task.run();
+
+			synchronized (mLock) {
+
+				// Load is only cached if symbol was not invalidated (or cache cleared) while loading
+				if (mLoading.get(key) == task) {
+
+					mLoading.remove(key);
+
+					TechnicalData data = result(symbol, task);
+					if (data.size() > 0) put(key, data);
+				}
+			}
+		}
+
+		return result(symbol, task);
+	}
+
+
+	/**
+	 * Remove symbol (and any shared MarketPanel containing it) from cache (used after its data
+	 * file is re-written).  Loads of the symbol still in progress are forgotten: threads already
+	 * waiting on them get the old data, but it is not cached and later requests load the file again.
+	 * @param symbol Stock or ETF identifier
+	 */
+	public static void invalidate(String symbol) {
+
+		synchronized (mLock) {
+			Iterator<Map.Entry<String, Entry>> iterator = mEntries.entrySet().iterator();
+
+			// Full data and every range of symbol
+			while (iterator.hasNext()) {
+				Map.Entry<String, Entry> entry = iterator.next();
+				if (isSymbol(entry.getKey(), symbol)) {
+					forget(entry.getValue());
+					iterator.remove();
+				}
+			}
+
+			Iterator<String> loading = mLoading.keySet().iterator();
+			while (loading.hasNext()) if (isSymbol(loading.next(), symbol)) loading.remove();
+		}
+
+		MarketPanel.invalidate(symbol);
+	}
+
+
+	/** Remove all symbols from cache */
+	public static void clear() {
+
+		synchronized (mLock) {
+			for (Entry entry : mEntries.values()) forget(entry);
+			mEntries.clear();
+			mLoading.clear();
+		}
+
+		MarketPanel.clear();
+	}
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Helper Methods
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	/** Add data to cache and evict least recently used entries until under budget */
+	private static void put(String key, TechnicalData data) {
+
+		Entry entry = new Entry(data);
+		Entry old = mEntries.put(key, entry);
+		if (old != null) forget(old);
+
+		mWeight += entry.mWeight;
+		data.addListener(mWeigher);
+
+		evict();
+	}
+
+
+	/** Update weight of data's entry after it grew or periods were appended, then evict if over budget */
+	private static void reweigh(TechnicalData data) {
+
+		synchronized (mLock) {
+
+			// Only looked up by value so re-weighing does not count as a use of the entry
+			for (Entry entry : mEntries.values()) {
+				if (entry.mData == data) {
+					long weight = data.footprint();
+					mWeight += weight - entry.mWeight;
+					entry.mWeight = weight;
+				}
+			}
+
+			evict();
+		}
+	}
+
+
+	/** Evict least recently used entries until under budget (keeps newest even if it alone is over) */
+	private static void evict() {
+
+		Iterator<Map.Entry<String, Entry>> iterator = mEntries.entrySet().iterator();
+
+		while (mWeight > Variables.mDataCacheBytes && mEntries.size() > 1) {
+
+			Map.Entry<String, Entry> eldest = iterator.next();
+			forget(eldest.getValue());
+			iterator.remove();
+			mEvictions++;
+		}
+	}
+
+
+	/** Take entry's weight off the total and stop listening to its data (entry is removed by caller) */
+	private static void forget(Entry entry) {
+		mWeight -= entry.mWeight;
+		entry.mData.removeListener(mWeigher);
+	}
+
+
+	/** Return loaded data, or empty data if load failed */
+	private static TechnicalData result(String symbol, FutureTask<TechnicalData> task) {
+
+		try {
+
+			return task.get();
+
+		} catch (ExecutionException e) {
+			System.out.println(symbol + " could not be loaded: " + e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		return new TechnicalData(symbol, new ArrayList<TechnicalNode>());
+	}
+
+
+	/** @return True if cache key is symbol's full data or one of its ranges */
+	private static boolean isSymbol(String key, String symbol) {
+		return key.equals(symbol) || key.startsWith(symbol + " ");
+	}
+
+
+	/** Cached data and the weight it is counted with */
+	private static final class Entry {
+
+		private final TechnicalData mData;		// Shared data
+		private long mWeight;					// Bytes counted in mWeight (see TechnicalData.footprint)
+
+		Entry(TechnicalData data) {
+			mData = data;
+			mWeight = data.footprint();
+		}
+	}
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Statistics
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	public static long hits()      { synchronized (mLock) { return mHits;      } }
+	public static long misses()    { synchronized (mLock) { return mMisses;    } }
+	public static long evictions() { synchronized (mLock) { return mEvictions; } }
+	public static long weight()    { synchronized (mLock) { return mWeight;    } }
+
+
+	/** @return Cache statistics as a String */
+	public static String stats() {
+
+		synchronized (mLock) {
+			return "TechnicalDataRegistry: " + mEntries.size() + " symbols, " + (mWeight >> 20) + " MB, " +
+					mHits + " hits, " + mMisses + " misses, " + mEvictions + " evictions";
+		}
+	}
+}
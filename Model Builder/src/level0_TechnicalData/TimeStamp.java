@@ -0,0 +1,162 @@
+package level0_TechnicalData;
+
+/**
+ * Helper class used to convert between YYYYMMDDhhmm time stamps (format stored in ETFData text files)
+ * and epoch minutes (minutes since 1970-01-01 00:00).  Epoch minutes are what TechnicalData stores
+ * in its time column, so converting does not require creating any String or Calendar objects.
+ *
+ * Time stamps are treated as local exchange time (no time zone conversion is done).
+ *
+ * @author Ryan Bell
+ */
+public final class TimeStamp {
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Class Variables
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	public static final int MINUTES_PER_DAY = 1440;		// Number of minutes in a calendar day
+
+
+	private TimeStamp() { }
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Time Stamp -> Epoch Minute
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	/**
+	 * Convert calendar values to epoch minutes
+	 * @param year Year (e.g. 2015)
+	 * @param month Month of year (1 - 12)
+	 * @param day Day of month (1 - 31)
+	 * @param hour Hour of day (0 - 23)
+	 * @param minute Minute of hour (0 - 59)
+	 * @return Minutes since 1970-01-01 00:00
+	 */
+	public static long toEpochMinute(int year, int month, int day, int hour, int minute) {
+		return epochDay(year, month, day) * MINUTES_PER_DAY + hour * 60 + minute;
+	}
+
+
+	/**
+	 * Convert time stamp in YYYYMMDDhhmm format to epoch minutes
+	 * @param timeStamp Time stamp (first 12 characters are used)
+	 * @return Minutes since 1970-01-01 00:00
+	 */
+	public static long parse(CharSequence timeStamp) {
+
+		return toEpochMinute(
+				digits(timeStamp, 0, 4),
+				digits(timeStamp, 4, 2),
+				digits(timeStamp, 6, 2),
+				digits(timeStamp, 8, 2),
+				digits(timeStamp, 10, 2));
+	}
+
+
+	/**
+	 * Number of days since 1970-01-01 for the given date (proleptic Gregorian calendar)
+	 * @param year Year (e.g. 2015)
+	 * @param month Month of year (1 - 12)
+	 * @param day Day of month (1 - 31)
+	 * @return Epoch day
+	 */
+	public static long epochDay(int year, int month, int day) {
+
+		// Shift year so it begins in March (leap day becomes last day of year)
+		long y = month <= 2 ? year - 1 : year;
+		long era = Math.floorDiv(y, 400);
+		long yoe = y - era * 400;											// Year of era [0, 399]
+		long doy = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;	// Day of year [0, 365]
+		long doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;					// Day of era [0, 146096]
+
+		return era * 146097 + doe - 719468;
+	}
+
+
+	/** Parse length digits of timeStamp beginning at offset as an integer */
+	private static int digits(CharSequence timeStamp, int offset, int length) {
+
+		int value = 0;
+		for (int i = offset; i < offset + length; i++) value = value * 10 + (timeStamp.charAt(i) - '0');
+		return value;
+	}
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Epoch Minute -> Time Stamp
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	/**
+	 * Convert epoch minutes to numeric time stamp
+	 * @param epochMinute Minutes since 1970-01-01 00:00
+	 * @return Time stamp as a number in YYYYMMDDhhmm format (e.g. 201512301930)
+	 */
+	public static long toKey(long epochMinute) {
+
+		long date = toDateKey(Math.floorDiv(epochMinute, MINUTES_PER_DAY));
+		int minuteOfDay = minuteOfDay(epochMinute);
+
+		return date * 10000L + (minuteOfDay / 60) * 100 + minuteOfDay % 60;
+	}
+
+
+	/**
+	 * Convert epoch day to numeric date
+	 * @param epochDay Days since 1970-01-01
+	 * @return Date as a number in YYYYMMDD format (e.g. 20151230)
+	 */
+	public static long toDateKey(long epochDay) {
+
+		long z = epochDay + 719468;
+		long era = Math.floorDiv(z, 146097);
+		long doe = z - era * 146097;											// Day of era [0, 146096]
+		long yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;		// Year of era [0, 399]
+		long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);						// Day of year [0, 365]
+		long mp = (5 * doy + 2) / 153;											// March based month [0, 11]
+		long day = doy - (153 * mp + 2) / 5 + 1;
+		long month = mp < 10 ? mp + 3 : mp - 9;
+		long year = yoe + era * 400 + (month <= 2 ? 1 : 0);
+
+		return year * 10000L + month * 100 + day;
+	}
+
+
+	/**
+	 * Convert epoch minutes to time stamp String
+	 * @param epochMinute Minutes since 1970-01-01 00:00
+	 * @return Time stamp in YYYYMMDDhhmm format
+	 */
+	public static String format(long epochMinute) {
+		return Long.toString(toKey(epochMinute));
+	}
+
+
+	/** @return Minute of the day (0 - 1439) of epoch minute parameter */
+	public static int minuteOfDay(long epochMinute) {
+		return (int) Math.floorMod(epochMinute, (long) MINUTES_PER_DAY);
+	}
+
+
+	/** @return Days since 1970-01-01 of epoch minute parameter */
+	public static long epochDayOf(long epochMinute) {
+		return Math.floorDiv(epochMinute, MINUTES_PER_DAY);
+	}
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Testing
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	public static void main(String[] args) {
+
+		long minute = parse("200810201930");
+		System.out.println("200810201930 -> " + minute + " -> " + format(minute));
+	}
+}
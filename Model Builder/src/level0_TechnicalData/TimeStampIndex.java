@@ -0,0 +1,285 @@
+package level0_TechnicalData;
+
+import java.util.Arrays;
+
+/**
+ * Index of TechnicalData time stamps used to find periods by full or partial time stamp
+ * (e.g. "2014" = first period of 2014, "201512" = first period of December, 2015).
+ *
+ * Time stamps are kept as sorted YYYYMMDDhhmm numbers, so any partial time stamp is a
+ * numeric range that can be binary searched.  Year, month, and day look ups (the common
+ * 4, 6, and 8 digit time stamps) use offset tables and take constant time.
+ *
+ * Periods must be in ascending time order (as ProcessData writes them).
+ *
+ * @author Ryan Bell
+ */
+public final class TimeStampIndex {
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Class Variables
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	private static final int DIGITS = 12;			// Length of full YYYYMMDDhhmm time stamp
+
+	// Bytes used per period indexed (key of each period, day / month / year tables are far shorter)
+	static final int PERIOD_BYTES = 8;
+
+	private final long[] mKeys;			// Time stamp of each period in YYYYMMDDhhmm format
+	private final int mSize;			// Number of periods indexed
+
+	private final int mFirstYear;		// Year of first period
+	private final int[] mYearStart;		// First index of each year since mFirstYear (-1 = no periods)
+	private final int[] mMonthStart;	// First index of each month since January of mFirstYear
+	private final long mFirstDay;		// Epoch day of first period
+	private final int[] mDayStart;		// First index of each day since mFirstDay
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Constructor
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	/**
+	 * Build index over time column
+	 * @param time Time stamps in epoch minutes (ascending)
+	 * @param size Number of time stamps used
+	 */
+	public TimeStampIndex(long[] time, int size) {
+
+		mSize = size;
+		mKeys = new long[size];
+
+		if (size == 0) {
+			mFirstYear = 0;
+			mFirstDay = 0;
+			mYearStart = new int[0];
+			mMonthStart = new int[0];
+			mDayStart = new int[0];
+			return;
+		}
+
+
+		// 1. Create tables spanning first -> last period //////////////////////////////////////////
+
+
+		mFirstDay = TimeStamp.epochDayOf(time[0]);
+		long lastDay = TimeStamp.epochDayOf(time[size - 1]);
+
+		mFirstYear = (int) (TimeStamp.toDateKey(mFirstDay) / 10000);
+		int years = (int) (TimeStamp.toDateKey(lastDay) / 10000) - mFirstYear + 1;
+
+		mYearStart  = filled(years);
+		mMonthStart = filled(years * 12);
+		mDayStart   = filled((int) (lastDay - mFirstDay + 1));
+
+
+		// 2. Convert time stamps and record first index of each year, month, and day //////////////
+
+
+		long day = Long.MIN_VALUE;			// Epoch day of previous period
+		long date = 0;						// YYYYMMDD of previous period
+
+		for (int i = 0; i < size; i++) {
+
+			long epochDay = TimeStamp.epochDayOf(time[i]);
+			int minute = TimeStamp.minuteOfDay(time[i]);
+
+			// Date only changes once per day
+			if (epochDay != day) {
+
+				day = epochDay;
+				date = TimeStamp.toDateKey(epochDay);
+
+				int year = (int) (date / 10000) - mFirstYear;
+				int month = year * 12 + (int) (date / 100 % 100) - 1;
+
+				setFirst(mYearStart, year, i);
+				setFirst(mMonthStart, month, i);
+				setFirst(mDayStart, (int) (epochDay - mFirstDay), i);
+			}
+
+			mKeys[i] = date * 10000L + (minute / 60) * 100 + minute % 60;
+		}
+	}
+
+
+	/** @return Array of length filled with -1 */
+	private static int[] filled(int length) {
+
+		int[] array = new int[Math.max(0, length)];
+		Arrays.fill(array, -1);
+		return array;
+	}
+
+
+	/** Record index as first in table slot if slot is in range and not already set */
+	private static void setFirst(int[] table, int slot, int index) {
+		if (slot >= 0 && slot < table.length && table[slot] < 0) table[slot] = index;
+	}
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Look Up Methods
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	/**
+	 * Retrieve first index that starts with time stamp
+	 * @param timeStamp Time in YYYYMMDDhhmm format (can be shortened)
+	 * @return First index that has designated time stamp (-1 if none)
+	 */
+	public int indexOf(String timeStamp) {
+
+		long prefix = prefix(timeStamp);
+		if (prefix < 0) return -1;
+
+
+		// 1. Constant time look ups for year, month, and day //////////////////////////////////////
+
+
+		int year = (int) (prefix / pow10(timeStamp.length() - 4)) - mFirstYear;
+
+		switch (timeStamp.length()) {
+
+		case 4:
+			return slot(mYearStart, year);
+
+		case 6:
+			int month = (int) (prefix % 100);
+			return month >= 1 && month <= 12 ? slot(mMonthStart, year * 12 + month - 1) : -1;
+
+		case 8:
+			int m = (int) (prefix / 100 % 100);
+			int d = (int) (prefix % 100);
+			if (m < 1 || m > 12 || d < 1 || d > 31) return -1;
+
+			long epochDay = TimeStamp.epochDay((int) (prefix / 10000), m, d);
+			if (TimeStamp.toDateKey(epochDay) != prefix) return -1;		// Invalid date (e.g. Feb 30)
+
+			return slot(mDayStart, epochDay - mFirstDay);
+		}
+
+
+		// 2. Binary search for all other lengths //////////////////////////////////////////////////
+
+
+		long scale = pow10(DIGITS - timeStamp.length());
+		int index = lowerBound(prefix * scale);
+
+		return index < mSize && mKeys[index] < (prefix + 1) * scale ? index : -1;
+	}
+
+
+	/**
+	 * Retrieve last index that starts with time stamp
+	 * @param timeStamp Time in YYYYMMDDhhmm format (can be shortened)
+	 * @return Last index that has designated time stamp (-1 if none)
+	 */
+	public int lastIndexOf(String timeStamp) {
+
+		long prefix = prefix(timeStamp);
+		if (prefix < 0) return -1;
+
+		long scale = pow10(DIGITS - timeStamp.length());
+		int index = lowerBound((prefix + 1) * scale) - 1;
+
+		return index >= 0 && mKeys[index] >= prefix * scale ? index : -1;
+	}
+
+
+	/**
+	 * First period at or after the beginning of time stamp (e.g. "201503" = first period on or after March 1, 2015)
+	 * @param timeStamp Time in YYYYMMDDhhmm format (can be shortened)
+	 * @return Index of period (-1 if none)
+	 */
+	public int firstAtOrAfter(String timeStamp) {
+
+		long prefix = prefix(timeStamp);
+		if (prefix < 0) return -1;
+
+		int index = lowerBound(prefix * pow10(DIGITS - timeStamp.length()));
+		return index < mSize ? index : -1;
+	}
+
+
+	/**
+	 * Last period before the beginning of time stamp (e.g. "201503" = last period in February, 2015 or earlier)
+	 * @param timeStamp Time in YYYYMMDDhhmm format (can be shortened)
+	 * @return Index of period (-1 if none)
+	 */
+	public int lastBefore(String timeStamp) {
+
+		long prefix = prefix(timeStamp);
+		if (prefix < 0) return -1;
+
+		return lowerBound(prefix * pow10(DIGITS - timeStamp.length())) - 1;
+	}
+
+
+	/** @return Time stamp of period in YYYYMMDDhhmm format as a number */
+	public long key(int index) {
+		return mKeys[index];
+	}
+
+
+	/** @return Number of periods indexed */
+	public int size() {
+		return mSize;
+	}
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Helper Methods
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	/** @return Time stamp parameter as a number (-1 if empty, too long, or not all digits) */
+	private static long prefix(String timeStamp) {
+
+		if (timeStamp == null || timeStamp.length() == 0 || timeStamp.length() > DIGITS) return -1;
+
+		long value = 0;
+
+		for (int i = 0; i < timeStamp.length(); i++) {
+			char c = timeStamp.charAt(i);
+			if (c < '0' || c > '9') return -1;
+			value = value * 10 + (c - '0');
+		}
+
+		return value;
+	}
+
+
+	/** @return Table value at slot (-1 if slot is outside of table) */
+	private static int slot(int[] table, long slot) {
+		return slot >= 0 && slot < table.length ? table[(int) slot] : -1;
+	}
+
+
+	/** @return First index with key >= value (mSize if none) */
+	private int lowerBound(long value) {
+
+		int low = 0;
+		int high = mSize;
+
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (mKeys[mid] < value) low = mid + 1;
+			else high = mid;
+		}
+
+		return low;
+	}
+
+
+	/** @return 10 to the power of exponent */
+	private static long pow10(int exponent) {
+
+		long value = 1;
+		for (int i = 0; i < exponent; i++) value *= 10;
+		return value;
+	}
+}
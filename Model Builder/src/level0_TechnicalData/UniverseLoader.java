@@ -0,0 +1,164 @@
+package level0_TechnicalData;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import model.Variables;
+
+/**
+ * Loads every symbol of a run into TechnicalDataRegistry in the background, at most
+ * Variables.mLoadingThreads files at a time.  Symbols are loaded in the order given, and the
+ * registry shares loads that are in progress, so analysis can start on the first symbols while
+ * later ones are still loading (a thread that asks for a symbol early waits on the same load).
+ *
+ * Each load records its time and the bytes of columns loaded (see report).
+ *
+ * @author Ryan Bell
+ */
+public final class UniverseLoader {
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Class Variables
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	private final String[] mSymbols;			// Symbols being loaded (in load order)
+	private final Future<?>[] mLoads;			// Load of each symbol
+	private final long[] mMillis;				// Time taken to load each symbol
+	private final long[] mBytes;				// Bytes of columns loaded for each symbol
+	private final long[] mFinished;				// Time each symbol finished loading (ms)
+	private final long mStartTime;				// Time prefetch started (ms)
+	private final int mThreads;					// Number of files read at once
+	private final ExecutorService mPool;		// Bounded pool running the loads
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Constructors
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	private UniverseLoader(String[] symbols, final String start, final String end, final int lookback) {
+
+		mSymbols = symbols.clone();
+		mLoads = new Future<?>[mSymbols.length];
+		mMillis = new long[mSymbols.length];
+		mBytes = new long[mSymbols.length];
+		mFinished = new long[mSymbols.length];
+		mStartTime = System.currentTimeMillis();
+
+		mThreads = Math.max(1, Math.min(Variables.mLoadingThreads, mSymbols.length));
+
+		// Daemon threads so a prefetch never keeps the program running
+		mPool = Executors.newFixedThreadPool(mThreads, new ThreadFactory() {
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "UniverseLoader");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+
+		for (int s = 0; s < mSymbols.length; s++) {
+
+			final int index = s;
+			final String symbol = mSymbols[s];
+
+			mLoads[s] = mPool.submit(() -> {
+
+				long time = System.nanoTime();
+
+				TechnicalData data = start == null ? TechnicalDataRegistry.get(symbol) :
+						TechnicalDataRegistry.get(symbol, start, end, lookback);
+
+				mMillis[index] = (System.nanoTime() - time) / 1000000;
+				mBytes[index] = (long) data.size() * BarFile.ROW_BYTES;
+				mFinished[index] = System.currentTimeMillis();
+			});
+		}
+
+		mPool.shutdown();
+	}
+
+
+	/**
+	 * Start loading full data of every symbol in the background
+	 * @param symbols Symbols to load (in the order they will be needed)
+	 * @return Loader that can be waited on and reported
+	 */
+	public static UniverseLoader prefetch(String[] symbols) {
+		return new UniverseLoader(symbols, null, null, 0);
+	}
+
+
+	/**
+	 * Start loading start -> end plus lookback periods of every symbol in the background (see
+	 * TechnicalDataRegistry.get(symbol, start, end, lookback))
+	 * @param symbols Symbols to load (in the order they will be needed)
+	 * @param start Time stamp of first period in YYYYMMDDhhmm format (can be shortened)
+	 * @param end Time stamp of last period in YYYYMMDDhhmm format (can be shortened)
+	 * @param lookback Periods before start that will be read
+	 * @return Loader that can be waited on and reported
+	 */
+	public static UniverseLoader prefetch(String[] symbols, String start, String end, int lookback) {
+		return new UniverseLoader(symbols, start, end, lookback);
+	}
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Primary Methods for Class
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	/** Wait until every symbol has been loaded */
+	public void await() {
+
+		try {
+			mPool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+
+	/** @return True if every symbol has been loaded */
+	public boolean isDone() {
+		return mPool.isTerminated();
+	}
+
+
+	/**
+	 * Wait for every symbol and summarize the loads
+	 * @return Load time (ms) and bytes of each symbol followed by the totals
+	 */
+	public String report() {
+
+		await();
+
+		StringBuilder str = new StringBuilder("UniverseLoader:\r\n");
+		long bytes = 0;
+		long finished = mStartTime;
+
+		for (int s = 0; s < mSymbols.length; s++) {
+
+			try {
+				mLoads[s].get();
+				str.append("\t" + mSymbols[s] + ": " + mMillis[s] + " ms, " + (mBytes[s] >> 10) + " KB\r\n");
+				bytes += mBytes[s];
+				finished = Math.max(finished, mFinished[s]);
+			} catch (ExecutionException e) {
+				str.append("\t" + mSymbols[s] + ": failed (" + e.getCause() + ")\r\n");
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		str.append("\t" + mSymbols.length + " symbols, " + (bytes >> 20) + " MB in " + (finished - mStartTime) +
+				" ms (" + mThreads + " threads)");
+
+		return str.toString();
+	}
+}
@@ -4,6 +4,7 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
 
+import level0_TechnicalData.DataWindow;
 import level0_TechnicalData.TechnicalData;
 import model.Model;
 
@@ -31,23 +32,136 @@ public class BollingerBands {
 
 	/**
 	 * @param data Data to calculate values for
-	 * @param startDate Beginning date in TechnicalData list
-	 * @param endDate End date in TechnicalData list
 	 * @param period Number of days to calculate bollinger bands for (Starts doing calculations at this index as well)
 	 * @param weight Standard deviation weight factor (raises & lowers bands)  [usual set to 2]
 	 * @return List of Bollinger Band position of close between band values
 	 */
 	public static ArrayList<Double> bollingerBands(TechnicalData data, int period, double weight) {
 
-		ArrayList<Double> list = new ArrayList<Double>();
+		return bollingerBands(data, period - 1, data.size() - 1, period, weight);
+	}
+
+
+	/**
+	 * @param data Data to calculate values for
+	 * @param start First index in TechnicalData list to calculate value for
+	 * @param end Last index in TechnicalData list to calculate value for
+	 * @param period Number of periods to calculate bollinger bands over
+	 * @param weight Standard deviation weight factor (raises & lowers bands)  [usual set to 2]
+	 * @return List of Bollinger Band position of close between band values
+	 */
+	public static ArrayList<Double> bollingerBands(TechnicalData data, int start, int end, int period, double weight) {
+
+		return bollingerBands(data, start, end, new int[] {period}, weight).get(0);
+	}
+
+
+	/**
+	 * Calculate Bollinger Band positions of every period from one shared array of closes.  Each
+	 * period keeps a rolling sum of close and close^2, so its mean and standard deviation are
+	 * updated in constant time per index.
+	 *
+	 * The closes summed are shifted by a recent close, and the shift is moved up to the current
+	 * close every period indexes (refilling the sums costs period additions, so this is still
+	 * constant time per index).  With one fixed shift, a sum of squares taken over prices that
+	 * have drifted away from it is many orders of magnitude larger than the variance of a
+	 * quiet period, and taking their difference would lose most of the variance's digits.
+	 *
+	 * @param data Data to calculate values for
+	 * @param start First index in TechnicalData list to calculate value for
+	 * @param end Last index in TechnicalData list to calculate value for
+	 * @param periods Numbers of periods to calculate bollinger bands over
+	 * @param weight Standard deviation weight factor (raises & lowers bands)  [usual set to 2]
+	 * @return List of Bollinger Band positions for each period
+	 */
+	public static ArrayList<ArrayList<Double>> bollingerBands(TechnicalData data, int start, int end, int[] periods, double weight) {
+		return bollingerBands(data.closes(), start, end, periods, weight);
+	}
+
+
+	/**
+	 * bollingerBands over a validated window (closes are read straight from the window's column)
+	 * @param window Data window with at least lookback(period) periods before start for every period
+	 * @param periods Numbers of periods to calculate bollinger bands over
+	 * @param weight Standard deviation weight factor (raises & lowers bands)  [usual set to 2]
+	 * @return List of Bollinger Band positions for each period
+	 */
+	public static ArrayList<ArrayList<Double>> bollingerBands(DataWindow window, int[] periods, double weight) {
+
+		for (int period : periods) window.require(lookback(period));
+		return bollingerBands(window.closes(), window.start(), window.end(), periods, weight);
+	}
+
+
+	/** bollingerBands of closes start -> end */
+	private static ArrayList<ArrayList<Double>> bollingerBands(double[] close, int start, int end, int[] periods, double weight) {
+
+		ArrayList<ArrayList<Double>> lists = new ArrayList<ArrayList<Double>>();
+		for (int p = 0; p < periods.length; p++) lists.add(new ArrayList<Double>(Math.max(0, end - start + 1)));
+
+		if (end < start || periods.length == 0) return lists;
+
+
+		// 1. First close read by every period //////////////////////////////////////////////////////////////////
+
+
+		int longest = 0;
+		for (int period : periods) longest = Math.max(longest, period);
+
+		int first = Math.max(0, start - longest + 1);		// Index of first close read
+
+
+		// 2. Rolling mean and standard deviation of each period ////////////////////////////////////////////////
+
 
-		for (int i = 0; i <= data.size(); i++) {
-			list.add(
-					Model.round(bollingerBand(data, i, period, weight), 6)
-					);
+		RollingSum sum = new RollingSum();				// Sum of shifted closes in period
+		RollingSum square = new RollingSum();			// Sum of shifted closes squared
+
+		for (int p = 0; p < periods.length; p++) {
+
+			int period = periods[p];
+			ArrayList<Double> list = lists.get(p);
+			double shift = 0.0;							// Subtracted from closes before summing
+
+			for (int i = start; i <= end; i++) {
+
+				int oldest = Math.max(first, i - period + 1);	// Fewer values at beginning of data set
+
+				// Move shift to current close and refill sums (other than current close)
+				if ((i - start) % period == 0) {
+
+					shift = close[i];
+					sum.clear();
+					square.clear();
+
+					for (int j = oldest; j < i; j++) {
+						double x = close[j] - shift;
+						sum.add(x);
+						square.add(x * x);
+					}
+				}
+
+				// Close entering period
+				double x = close[i] - shift;
+				sum.add(x);
+				square.add(x * x);
+
+				int count = i - oldest + 1;
+				double mean = sum.sum() / count;
+				double variance = Math.max(0.0, (square.sum() - sum.sum() * mean) / count);
+
+				list.add(Model.round(position(x, mean, Math.sqrt(variance), weight), 6));
+
+				// Close leaving period before next index
+				if (i - period + 1 >= first) {
+					double out = close[i - period + 1] - shift;
+					sum.subtract(out);
+					square.subtract(out * out);
+				}
+			}
 		}
 
-		return list;
+		return lists;
 	}
 
 	
@@ -57,7 +171,8 @@ public class BollingerBands {
 	
 	
 	/**
-	 * Calculate standard deviation position score for close value at
+	 * Calculate standard deviation position score for close value at index directly from the
+	 * closes of the period (reference for bollingerBands)
 	 * @param data Data set to calculate bollinger band for
 	 * @param index Index in data set to calculate bollinger band for
 	 * @param period Number of days to calculate bollinger bands for (Starts doing calculations at this index as well)
@@ -70,15 +185,7 @@ public class BollingerBands {
 		double sma = MA.movingAverage(data, index, period);
 		double stdDev = standardDeviation(data, index, period, sma);
 
-		// Set close and upper band values
-		double close = data.close(index);
-		double upperBand = sma + (weight * stdDev);
-		double lowerBand = sma - (weight * stdDev);
-		
-		System.out.println(data.timeStamp(index) + ": \n" + upperBand + "\n" + close + "/" + sma + "\n" + lowerBand);
-		
-		// Calculate position close value is in within band range
-		return (close - sma)/(upperBand - sma);
+		return position(data.close(index), sma, stdDev, weight);
 	}
 	
 	
@@ -94,19 +201,43 @@ public class BollingerBands {
 	public static double standardDeviation(TechnicalData data, int index, int period, double mean) {
 
 		double stdDev = 0.0;
-		
-		// Return placeholder value if period > indexed values (beginning of data set)
-		if (index - period + 1 < 0) {
-		
-			
-			
-		// Calculate standard deviation
-		} else {
-			for (int i = index - period + 1; i <= index; i++)
-				stdDev += Math.pow((data.close(i) - mean), 2);
-		
-			return Math.pow(stdDev / period, 0.5);
-		}
+		int first = Math.max(0, index - period + 1);	// Fewer values at beginning of data set
+
+		for (int i = first; i <= index; i++)
+			stdDev += (data.close(i) - mean) * (data.close(i) - mean);
+
+		return Math.sqrt(stdDev / (index - first + 1));
+	}
+
+
+	/**
+	 * Position of close between the bands: 0 at the moving average, 1 at the upper band and -1 at
+	 * the lower band
+	 * @param close Close value
+	 * @param sma Moving average of closes
+	 * @param stdDev Standard deviation of closes
+	 * @param weight Standard deviation weight factor
+	 * @return Position of close (0 if bands have no width)
+	 */
+	private static double position(double close, double sma, double stdDev, double weight) {
+
+		double upperBand = sma + (weight * stdDev);
+		return upperBand == sma ? 0.0 : (close - sma)/(upperBand - sma);
+	}
+
+
+	//////////////////////////////////////////////////////////////////////////////////////////////////////////////
+	// Lookback
+	//////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	/**
+	 * Number of periods before start that bollingerBands reads
+	 * @param period Bollinger band period
+	 * @return Required lookback
+	 */
+	public static int lookback(int period) {
+		return period - 1;
 	}
 	
 	
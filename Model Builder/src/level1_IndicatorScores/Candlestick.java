@@ -52,7 +52,7 @@ public class Candlestick {
 		for (int i = start; i <= end; i++) {
 
 			if (cf <= 1) index = i;
-			else index = modI(i, cf);
+			else index = modI(i, cf, tdata.offset());
 			
 			list.add(getCandlestickScore(data, index, cprw));
 		
@@ -72,12 +72,15 @@ public class Candlestick {
 	 * Used to "stagger" indexes parameter in getCandlestickScore method.  This method is necessary to 
 	 * prevent a "moving average effect".
 	 * Example (cf = 3): 0, 1, 2, 3, 4, 5, 6 => 0, 0, 0, 3, 3, 3
+	 * Groups are counted from the first period of the symbol's full history, so data loaded by
+	 * range (offset > 0) is grouped the same way as the full history.
 	 * @param index Current index in technical data being added
 	 * @param cf Combining factor for determining period to calculate candlesticks for (Period = 5 x cf)
+	 * @param offset Index of data's first period in full history (see TechnicalData.offset)
 	 * @return Index to calculate candlestick score for
 	 */
-	private static int modI(int index, int cf) {
-		return index - index % cf;
+	private static int modI(int index, int cf, int offset) {
+		return index - (index + offset) % cf;
 	}
 
 
@@ -471,6 +474,23 @@ public class Candlestick {
 	}
 
 
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Lookback
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	/**
+	 * Number of periods before start that candlestickAnalysis reads.  The first group can start
+	 * cf - 1 periods before start, patterns read the 2 compressed periods before it, and each
+	 * compressed period combines the cf - 1 periods before it.
+	 * @param cf Compression factor
+	 * @return Required lookback
+	 */
+	public static int lookback(int cf) {
+		return 2 * Math.max(cf, 1);
+	}
+
+
 	////////////////////////////////////////////////////////////////////////////////////////////////
 	// Testing
 	////////////////////////////////////////////////////////////////////////////////////////////////
@@ -175,6 +175,22 @@ public class EMA {
 	}
 
 
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	// Lookback
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	/**
+	 * Number of periods before start that emaScores reads (exponentialMovingAverages and emaCross use npl = 0)
+	 * @param period Exponential moving average period
+	 * @param npl Normalization period length multiplier
+	 * @return Required lookback
+	 */
+	public static int lookback(int period, int npl) {
+		return Math.max(period * npl, period);
+	}
+
+
 	/////////////////////////////////////////////////////////////////////////////////////////////////
 	// Testing
 	/////////////////////////////////////////////////////////////////////////////////////////////////
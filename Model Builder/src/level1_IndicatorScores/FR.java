@@ -2,6 +2,8 @@ package level1_IndicatorScores;
 
 import java.util.ArrayList;
 
+import level0_TechnicalData.DataWindow;
+import level0_TechnicalData.RangeIndex;
 import level0_TechnicalData.TechnicalData;
 import model.Model;
 import model.Variables;
@@ -9,6 +11,11 @@ import model.Variables;
 // Fibonacci Retracement
 public class FR {
 
+
+	// Retracement levels of support and resistance lines (fraction of period's high - low)
+	private static final double[] LEVELS = {0.0, 0.236, 0.382, 0.5, 0.618, 1.0};
+
+
 	/**
 	 * Primary Wrapper Method Without Modifying Technical Data
 	 * @param data Technical analysis data to calculate fibonacci retracement values
@@ -19,38 +26,7 @@ public class FR {
 	 */
 	public static ArrayList<Double> fibonacciRetracement(TechnicalData data, int start, int end, int period) {
 
-		ArrayList<Double> list = new ArrayList<Double>();
-
-		// Variables to store changing fibonacci support and resistance lines
-		double close, delta, p100, p61_8, p50, p38_2, p23_6, p0;
-
-		// Calculate values
-		for (int i = start; i <= end; i++) {
-
-			p100 = data.high(i);
-			p0 = data.low(i);
-
-			// Find maximum and minimum values over period
-			for (int j = i-period+1; j < start; j++) {
-				if (data.high(j) > p100) p100 = data.high(j);
-				if (data.low(j) < p0) p0 = data.low(j);
-			}
-
-			// Calculate Fibonacci Retracement Lines
-			close = data.close(i);
-			delta = p100-p0;
-			p61_8 = p0 + (delta * 0.618);
-			p50   = p0 + (delta * 0.5);
-			p38_2 = p0 + (delta * 0.382);
-			p23_6 = p0 + (delta * 0.236);
-
-			list.add(
-					Model.round(
-							evaluateFR(close, p100, p61_8, p50, p38_2, p23_6, p0)
-							,6)
-					);
-		}
-		return list;
+		return fibonacciRetracements(data, start, end, period).get(0);
 	}
 
 
@@ -65,39 +41,89 @@ public class FR {
 	 */
 	public static ArrayList<Double> fibonacciRetracement(TechnicalData data0, int start, int end, int period, int cf) {
 
-		TechnicalData data = TechnicalData.modifyTechnicalData(data0, cf);
-		ArrayList<Double> list = new ArrayList<Double>();
+		TechnicalData data = TechnicalData.modifyTechnicalData(data0, cf);	// Shared compressed view
+		return fibonacciRetracements(data, start, end, period).get(0);
+	}
+
+
+	/**
+	 * Calculate fibonacci retracement values of every period in one pass over the data.  The high
+	 * and low of each period come from the data's range index in constant time, so each value
+	 * costs the same whatever the period.
+	 *
+	 * The lines of index i are set by the highest high and lowest low of [i - period + 1, i].
+	 * Earlier versions only scanned the part of that window before start (plus index i), so
+	 * values after the first period differ from theirs (see checkWindow).
+	 * @param data Technical analysis data to calculate fibonacci retracement values
+	 * @param start First index in data set to calculate for
+	 * @param end Last index in data set to calculate for
+	 * @param periods Periods to calculate retracement over (set high and low)
+	 * @return List of proximity to support and resistance lines for each period
+	 */
+	public static ArrayList<ArrayList<Double>> fibonacciRetracements(TechnicalData data, int start, int end, int... periods) {
+		return fibonacciRetracements(data.rangeIndex(), data.closes(), start, end, periods);
+	}
+
+
+	/**
+	 * fibonacciRetracements over a validated window (closes are read straight from the window's
+	 * column)
+	 * @param window Data window with at least lookback(period, 1) periods before start for every period
+	 * @param periods Periods to calculate retracement over (set high and low)
+	 * @return List of proximity to support and resistance lines for each period
+	 */
+	public static ArrayList<ArrayList<Double>> fibonacciRetracements(DataWindow window, int... periods) {
+
+		for (int period : periods) window.require(lookback(period, 1));
+		return fibonacciRetracements(window.data().rangeIndex(), window.closes(), window.start(), window.end(), periods);
+	}
+
 
-		// Variables to store changing fibonacci support and resistance lines
-		double close, delta, p100, p61_8, p50, p38_2, p23_6, p0;
+	/** fibonacciRetracements of closes start -> end with highs and lows from range */
+	private static ArrayList<ArrayList<Double>> fibonacciRetracements(RangeIndex range, double[] closes, int start, int end, int[] periods) {
+
+		ArrayList<ArrayList<Double>> lists = new ArrayList<ArrayList<Double>>();
+		for (int p = 0; p < periods.length; p++) lists.add(new ArrayList<Double>(Math.max(0, end - start + 1)));
+
+		double[] line = new double[LEVELS.length];		// Support and resistance lines (p0 -> p100)
 
 		// Calculate values
 		for (int i = start; i <= end; i++) {
 
-			p100 = data.high(i);
-			p0 = data.low(i);
+			double close = closes[i];
 
-			// Find maximum and minimum values over period
-			for (int j = i-period+1; j < start; j++) {
-				if (data.high(j) > p100) p100 = data.high(j);
-				if (data.low(j) < p0) p0 = data.low(j);
-			}
+			for (int p = 0; p < periods.length; p++) {
 
-			// Calculate Fibonacci Retracement Lines
-			close = data.close(i);
-			delta = p100-p0;
-			p61_8 = p0 + (delta * 0.618);
-			p50   = p0 + (delta * 0.5);
-			p38_2 = p0 + (delta * 0.382);
-			p23_6 = p0 + (delta * 0.236);
-
-			list.add(
-					Model.round(
-							evaluateFR(close, p100, p61_8, p50, p38_2, p23_6, p0)
-							,6)
-					);
+				// Maximum and minimum values over period
+				double p100 = range.maxHigh(i-periods[p]+1, i);
+				double p0 = range.minLow(i-periods[p]+1, i);
+
+				setLines(line, p100, p0);
+
+				lists.get(p).add(
+						Model.round(
+								evaluateFR(close, line)
+								,6)
+						);
+			}
 		}
-		return list;
+		return lists;
+	}
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Lookback
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	/**
+	 * Number of periods before start that fibonacciRetracement reads
+	 * @param period Retracement period
+	 * @param cf Compression factor (1 = none)
+	 * @return Required lookback
+	 */
+	public static int lookback(int period, int cf) {
+		return period - 1 + Math.max(cf, 1) - 1;
 	}
 
 
@@ -106,31 +132,84 @@ public class FR {
 	////////////////////////////////////////////////////////////////////////////////////////////////
 
 
+	/**
+	 * Calculate Fibonacci Retracement Lines of a period
+	 * @param line Support and resistance lines at each of LEVELS (set)
+	 * @param p100 Highest high of period
+	 * @param p0 Lowest low of period
+	 */
+	private static void setLines(double[] line, double p100, double p0) {
+
+		double delta = p100-p0;
+		for (int l = 1; l < LEVELS.length - 1; l++) line[l] = p0 + (delta * LEVELS[l]);
+		line[0] = p0;
+		line[LEVELS.length - 1] = p100;
+	}
+
+
 	/** Percentage points below next support [0] and resistance[1] level */
 	public static double evaluateFR(double close, double p100, double p61_8, double p50, double p38_2, double p23_6, double p0) {
 
-		double value;
-
-		if (close > p61_8) {
-			value = (close - p61_8) / (p100 - p61_8);
-		} else if (close > p50) {
-			value = (close - p50) / (p61_8 - p50);
-		} else if (close > p38_2) {
-			value = (close - p38_2) / (p50 - p38_2);
-		} else if (close > p23_6) {
-			value = (close - p23_6) / (p38_2 - p23_6);
-		} else {
-			value = (close - p0) / (p23_6 - p0);
-		}
+		return evaluateFR(close, new double[] {p0, p23_6, p38_2, p50, p61_8, p100});
+	}
+
+
+	/**
+	 * Percentage points above support line below close, of distance to next resistance line.
+	 * The lines increase, so the number of lines close is above gives the support line directly
+	 * (the comparisons are added rather than branched on).
+	 * @param close Close value
+	 * @param line Support and resistance lines at each of LEVELS
+	 * @return Position of close between the support and resistance lines around it
+	 */
+	private static double evaluateFR(double close, double[] line) {
+
+		int support = (close > line[1] ? 1 : 0) + (close > line[2] ? 1 : 0) + (close > line[3] ? 1 : 0)
+				+ (close > line[4] ? 1 : 0);
 
-		return value;
+		return (close - line[support]) / (line[support + 1] - line[support]);
 	}
 
+
 	////////////////////////////////////////////////////////////////////////////////////////////////
 	// Testing
 	////////////////////////////////////////////////////////////////////////////////////////////////
 
 
+	/**
+	 * Compare fibonacciRetracement with the high and low of each window scanned directly
+	 * (every index in [i - period + 1, i], not only those before start)
+	 * @return Number of values that differ from the direct scan
+	 */
+	private static int checkWindow(TechnicalData data, int start, int end, int period) {
+
+		ArrayList<Double> fr = fibonacciRetracement(data, start, end, period);
+		double[] line = new double[LEVELS.length];
+		int errors = 0;
+
+		for (int i = start; i <= end; i++) {
+
+			double p100 = data.high(i);
+			double p0 = data.low(i);
+
+			for (int j = i-period+1; j < i; j++) {
+				if (data.high(j) > p100) p100 = data.high(j);
+				if (data.low(j) < p0) p0 = data.low(j);
+			}
+
+			setLines(line, p100, p0);
+			double value = Model.round(evaluateFR(data.close(i), line), 6);
+
+			if (value != fr.get(i - start)) {
+				if (errors == 0) System.out.println("FR period " + period + " at " + data.timeStamp(i) + ": " + fr.get(i - start) + " != " + value);
+				errors++;
+			}
+		}
+
+		return errors;
+	}
+
+
 	public static void main(String[] args) {
 
 		TechnicalData data = new TechnicalData("IVV");
@@ -138,6 +217,10 @@ public class FR {
 		int end = data.getIndexByTimeStamp("2016");
 		int period = Variables.PIM;
 
+		// Values must come from the full window of each index
+		for (int p : new int[] {10, period, 21*period, 200*period})
+			System.out.println("FR period " + p + " window errors: " + checkWindow(data, start, end, p));
+
 		ArrayList<Double> fr = FR.fibonacciRetracement(data, start, end, period);
 		for (Double v : fr) System.out.println(v);
 	}
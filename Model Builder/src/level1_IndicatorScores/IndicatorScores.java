@@ -1,7 +1,11 @@
 package level1_IndicatorScores;
 
 import java.util.ArrayList;
+import level0_TechnicalData.DataWindow;
 import level0_TechnicalData.TechnicalData;
+import level0_TechnicalData.TechnicalDataRegistry;
+import level0_TechnicalData.UniverseLoader;
+import model.Catalog;
 import model.Model;
 import model.ModelTraining;
 import model.Read;
@@ -31,6 +35,9 @@ public class IndicatorScores extends Thread {
 	/** Constructor Wrapper: Call technical analysis for all symbols */
 	public static void level_1_Training(String start, String end) {
 
+		// Load all symbols in background (threads below wait only for symbols not loaded yet)
+		UniverseLoader loader = UniverseLoader.prefetch(Variables.SYMBOLS, start, end, requiredLookback());
+
 		// Create ArrayList<String> containing parsed symbols list
 		ArrayList<String[]> symbolsList = ModelTraining.parseSymbolsList();
 
@@ -42,6 +49,9 @@ public class IndicatorScores extends Thread {
 
 		// Change range of all symbol-indicator combinations so all indicator results have same max and min
 		normalizeIndicators();
+
+		System.out.println(loader.report());
+		System.out.println(TechnicalDataRegistry.stats());
 	}
 
 
@@ -59,12 +69,10 @@ public class IndicatorScores extends Thread {
 
 		if (mSymbol != null) {
 			// Converts stored text file to usable object
-			TechnicalData data = new TechnicalData(mSymbol);
-			int startIndex = data.getIndexByTimeStamp(mStart);
-			int endIndex = data.getIndexByTimeStamp(mEnd);
+			TechnicalData data = TechnicalDataRegistry.get(mSymbol, mStart, mEnd, requiredLookback());
 
 			// Run technical analysis on 
-			technicalAnalysis(data, mSymbol, startIndex, endIndex, true);
+			technicalAnalysis(data, mSymbol, mStart, mEnd, true);
 		}
 	}
 
@@ -89,12 +97,10 @@ public class IndicatorScores extends Thread {
 		//    This prevents all symbols being analyzed at same time (too many threads running and error out)
 
 
-		TechnicalData data = new TechnicalData(threadGroup[0]);
-		int startIndex = data.getIndexByTimeStamp(start);
-		int endIndex = data.getIndexByTimeStamp(end);
+		TechnicalData data = TechnicalDataRegistry.get(threadGroup[0], start, end, requiredLookback());
 
 		// Run technical analysis on first symbol in list (not as new thread)
-		technicalAnalysis(data, threadGroup[0], startIndex, endIndex, true);
+		technicalAnalysis(data, threadGroup[0], start, end, true);
 
 	}
 
@@ -105,22 +111,51 @@ public class IndicatorScores extends Thread {
 
 
 	/**
-	 * Wrapper method for indicators package that calls all technical analysis methods and saves each indicator value to .txt file
+	 * Validate that data covers start -> end plus every indicator's lookback, then run technical analysis
 	 * @param data Technical data to complete technical analysis for
 	 * @param start Start date of technical analysis calculation
 	 * @param end Last date of technical analysis calculation
-	 * @return All technical analysis data in list of arrays
+	 * @return True if all indicator scores were calculated
+	 */
+	private static boolean technicalAnalysis(TechnicalData data, String symbol, String start, String end, boolean erase) {
+
+		DataWindow window;
+
+		try {
+
+			window = DataWindow.of(data, start, end, requiredLookback());
+
+		} catch (IllegalArgumentException e) {
+
+			// Nothing has been calculated yet, so only the old scores need to be cleared
+			clearIndicatorScores(Variables.LEVEL_1 + symbol + "/");
+			System.out.println(symbol + " Does not contain data set required (" + e.getMessage() + ")");
+			return false;
+		}
+
+		return technicalAnalysis(window, symbol, erase);
+	}
+
+
+	/**
+	 * Wrapper method for indicators package that calls all technical analysis methods and saves each indicator value to .txt file
+	 * @param window Validated range of technical data to complete technical analysis for
+	 * @return True if all indicator scores were calculated
 	 */
-	private static void technicalAnalysis(TechnicalData data, String symbol, int start, int end, boolean erase) {
+	private static boolean technicalAnalysis(DataWindow window, String symbol, boolean erase) {
 
 
 		// Determine directory to store technical analysis results in
 		String directory = Variables.LEVEL_1 + symbol + "/";
 
+		TechnicalData data = window.data();
+		int start = window.start();
+		int end = window.end();
+
 
 		try {
 			System.out.println(symbol + " Level 1 Technical Analysis: BollingerBands");
-			bollingerBandIndicators(directory, data, start, end, erase);
+			bollingerBandIndicators(directory, window, erase);
 			System.out.println(symbol + " Level 1 Technical Analysis: Bottom Trend Line");
 			bottomTrendLineIndicators(directory, data, start, end, erase);
 			System.out.println(symbol + " Level 1 Technical Analysis: Candlestick");
@@ -132,73 +167,102 @@ public class IndicatorScores extends Thread {
 			System.out.println(symbol + " Level 1 Technical Analysis: EMA Cross");
 			exponentialMovingAverageCrossIndicators(directory, data, start, end, erase);
 			System.out.println(symbol + " Level 1 Technical Analysis: Fibonacci Retracement");
-			fibonacciRetracementIndicators(directory, data, start, end, erase);
+			fibonacciRetracementIndicators(directory, window, erase);
 			System.out.println(symbol + " Level 1 Technical Analysis: Moving Average Score");
-			movingAverageScoreIndicators(directory, data, start, end, erase);
+			movingAverageScoreIndicators(directory, window, erase);
 			System.out.println(symbol + " Level 1 Technical Analysis: Moving Average Cross");
-			movingAverageCrossIndicators(directory, data, start, end, erase);
+			movingAverageCrossIndicators(directory, window, erase);
 			System.out.println(symbol + " Level 1 Technical Analysis: MACD");
 			movingAverageConvergenceDivergenceIndicators(directory, data, start, end, erase);
 			System.out.println(symbol + " Level 1 Technical Analysis: Price Correlation");
 			marketPriceCorrelationIndicators(directory, data, start, end, erase);
 			System.out.println(symbol + " Level 1 Technical Analysis: Volume Correlation");
 			marketVolumeCorrelationIndicators(directory, data, start, end, erase);
-			System.out.println(symbol + " Level 1 Technical Analysis: On Balance Volume");
-			onBalanceVolumeIndicators(directory, data, start, end, erase);
-			System.out.println(symbol + " Level 1 Technical Analysis: On Balance Volume MA");
-			onBalanceVolumeMovingAverageIndicators(directory, data, start, end, erase);
+			System.out.println(symbol + " Level 1 Technical Analysis: On Balance Volume and MA");
+			onBalanceVolumeIndicators(directory, window, erase);
 			System.out.println(symbol + " Level 1 Technical Analysis: RSI");
-			relativeStrengthIndexIndicators(directory, data, start, end, erase);
+			relativeStrengthIndexIndicators(directory, window, erase);
 			System.out.println(symbol + " Level 1 Technical Analysis: RSI MA");
-			relativeStrengthIndexMovingAverageIndicators(directory, data, start, end, erase);
+			relativeStrengthIndexMovingAverageIndicators(directory, window, erase);
 			System.out.println(symbol + " Level 1 Technical Analysis: Top Trend Line");
 			topTrendLineIndicators(directory, data, start, end, erase);
 			System.out.println(symbol + " Level 1 Technical Analysis: Stochastic Momentum Indicator");
-			stochasticMomentumIndexIndicators(directory, data, start, end, erase);
+			stochasticMomentumIndexIndicators(directory, window, erase);
 			System.out.println(symbol + " Level 1 Technical Analysis: Volatility");
 			volatilityIndicators(directory, data, start, end, erase);
 			System.out.println(symbol + " Level 1 Technical Analysis: Volume Strength");
-			volumeStrengthIndicators(directory, data, start, end, erase);
+			volumeStrengthIndicators(directory, window, erase);
 
 
 			System.out.println("///////////////////////////////////////////////////////////////////////////////////////");
 			System.out.println(directory + " Complete");
 			Model.printTime();
+			return true;
 
-		} catch (NullPointerException e) {
+		} catch (NullPointerException | IndexOutOfBoundsException e) {
 
 			// Clear all TechnicalAnalysis indicator scores (full analysis cannot be done)
-			for (String indicator : Variables.INDICATORS)
-				Write.writeToFile(directory+indicator+".txt", "", true);
+			clearIndicatorScores(directory);
 
 			// Error message and return to end execution
 			System.out.println(symbol + " Does not contain data set required ");
-			return;
+			return false;
 		}
 
 	}
 
 
+	/**
+	 * Largest number of periods before the start index that any indicator below reads.  Update
+	 * when indicator periods are changed.
+	 * @return Lookback required by technical analysis
+	 */
+	public static int requiredLookback() {
+
+		int pim = Variables.PIM;
+		int lookback = 0;
+
+		lookback = Math.max(lookback, BollingerBands.lookback(200*pim));			// bollingerBands
+		lookback = Math.max(lookback, Candlestick.lookback(50*pim));				// candlestickAnalysis
+		lookback = Math.max(lookback, Trend.lookback(50, 50*pim));					// trendLines, derivative
+		lookback = Math.max(lookback, MA.lookback(125*pim, 3));						// maScores
+		lookback = Math.max(lookback, MA.lookback(200*pim, 0));						// maCross
+		lookback = Math.max(lookback, EMA.lookback(200*pim, 3));					// emaScores
+		lookback = Math.max(lookback, OBV.lookback(175*pim, 3));					// obvScores, obvMAScores
+		lookback = Math.max(lookback, SMI.lookback(175*pim));						// stochasticMomentumIndex
+		lookback = Math.max(lookback, RSI.lookback(175*pim, 1));					// relativeStrengthIndex
+		lookback = Math.max(lookback, RSI.rsiMALookback(10*pim, 10));				// rsiMA
+		lookback = Math.max(lookback, FR.lookback(200*pim, 1));						// fibonacciRetracement
+		lookback = Math.max(lookback, VS.lookback(175*pim, 3));						// volStrength
+		lookback = Math.max(lookback, Volatility.lookback(175*pim));				// volatility
+
+		return lookback;
+	}
+
+
+	/** Clear all TechnicalAnalysis indicator scores in directory */
+	private static void clearIndicatorScores(String directory) {
+
+		for (String indicator : Variables.INDICATORS)
+			Write.writeToFile(directory+indicator+".txt", "", true);
+	}
+
+
 	////////////////////////////////////////////////////////////////////////////////////////////////
 	// Technical Analysis Indicator Helper Methods
 	////////////////////////////////////////////////////////////////////////////////////////////////
 
 
-	private static void bollingerBandIndicators(String directory, TechnicalData data, int startIndex, int endIndex, boolean erase) {
+	private static void bollingerBandIndicators(String directory, DataWindow window, boolean erase) {
 
-		Write.doubleArrayList(directory+"bollingerBand0.txt",BollingerBands.bollingerBands(data, startIndex, endIndex, 10, 2), erase);
-		Write.doubleArrayList(directory+"bollingerBand1.txt",BollingerBands.bollingerBands(data, startIndex, endIndex, 50, 2), erase);
-		Write.doubleArrayList(directory+"bollingerBand2.txt",BollingerBands.bollingerBands(data, startIndex, endIndex, 75, 2), erase);
-		Write.doubleArrayList(directory+"bollingerBand3.txt",BollingerBands.bollingerBands(data, startIndex, endIndex, 100, 2), erase);
-		Write.doubleArrayList(directory+"bollingerBand4.txt",BollingerBands.bollingerBands(data, startIndex, endIndex, 150, 2), erase);
-		Write.doubleArrayList(directory+"bollingerBand5.txt",BollingerBands.bollingerBands(data, startIndex, endIndex, 200, 2), erase);
-		Write.doubleArrayList(directory+"bollingerBand6.txt",BollingerBands.bollingerBands(data, startIndex, endIndex, 10*Variables.PIM, 2), erase);
-		Write.doubleArrayList(directory+"bollingerBand7.txt",BollingerBands.bollingerBands(data, startIndex, endIndex, 21*Variables.PIM, 2), erase);
-		Write.doubleArrayList(directory+"bollingerBand8.txt",BollingerBands.bollingerBands(data, startIndex, endIndex, 50*Variables.PIM, 2), erase);
-		Write.doubleArrayList(directory+"bollingerBand9.txt",BollingerBands.bollingerBands(data, startIndex, endIndex, 75*Variables.PIM, 2), erase);
-		Write.doubleArrayList(directory+"bollingerBand10.txt",BollingerBands.bollingerBands(data, startIndex, endIndex, 100*Variables.PIM, 2), erase);
-		Write.doubleArrayList(directory+"bollingerBand11.txt",BollingerBands.bollingerBands(data, startIndex, endIndex, 150*Variables.PIM, 2), erase);
-		Write.doubleArrayList(directory+"bollingerBand12.txt",BollingerBands.bollingerBands(data, startIndex, endIndex, 200*Variables.PIM, 2), erase);
+		int[] periods = {10, 50, 75, 100, 150, 200, 10*Variables.PIM, 21*Variables.PIM, 50*Variables.PIM,
+				75*Variables.PIM, 100*Variables.PIM, 150*Variables.PIM, 200*Variables.PIM};
+
+		// Every period from one set of close prefix sums
+		ArrayList<ArrayList<Double>> bands = BollingerBands.bollingerBands(window, periods, 2);
+
+		for (int p = 0; p < periods.length; p++)
+			Write.doubleArrayList(directory+"bollingerBand"+p+".txt", bands.get(p), erase);
 
 	}
 
@@ -258,57 +322,55 @@ public class IndicatorScores extends Thread {
 	}
 
 
-	private static void fibonacciRetracementIndicators(String directory, TechnicalData data, int startIndex, int endIndex, boolean erase) {
+	private static void fibonacciRetracementIndicators(String directory, DataWindow window, boolean erase) {
+
+		int[] periods = {10, 50, 75, 100, 150, 200, 10*Variables.PIM, 21*Variables.PIM, 50*Variables.PIM,
+				75*Variables.PIM, 100*Variables.PIM, 150*Variables.PIM, 200*Variables.PIM};
 
-		Write.doubleArrayList(directory+"fr0.txt",FR.fibonacciRetracement(data, startIndex, endIndex, 10), erase);
-		Write.doubleArrayList(directory+"fr1.txt",FR.fibonacciRetracement(data, startIndex, endIndex, 50), erase);
-		Write.doubleArrayList(directory+"fr2.txt",FR.fibonacciRetracement(data, startIndex, endIndex, 75), erase);
-		Write.doubleArrayList(directory+"fr3.txt",FR.fibonacciRetracement(data, startIndex, endIndex, 100), erase);
-		Write.doubleArrayList(directory+"fr4.txt",FR.fibonacciRetracement(data, startIndex, endIndex, 150), erase);
-		Write.doubleArrayList(directory+"fr5.txt",FR.fibonacciRetracement(data, startIndex, endIndex, 200), erase);
-		Write.doubleArrayList(directory+"fr6.txt",FR.fibonacciRetracement(data, startIndex, endIndex, 10*Variables.PIM), erase);
-		Write.doubleArrayList(directory+"fr7.txt",FR.fibonacciRetracement(data, startIndex, endIndex, 21*Variables.PIM), erase);
-		Write.doubleArrayList(directory+"fr8.txt",FR.fibonacciRetracement(data, startIndex, endIndex, 50*Variables.PIM), erase);
-		Write.doubleArrayList(directory+"fr9.txt",FR.fibonacciRetracement(data, startIndex, endIndex, 75*Variables.PIM), erase);
-		Write.doubleArrayList(directory+"fr9.txt",FR.fibonacciRetracement(data, startIndex, endIndex, 100*Variables.PIM), erase);
-		Write.doubleArrayList(directory+"fr10.txt",FR.fibonacciRetracement(data, startIndex, endIndex, 150*Variables.PIM), erase);
-		Write.doubleArrayList(directory+"fr11.txt",FR.fibonacciRetracement(data, startIndex, endIndex, 200*Variables.PIM), erase);
+		// File of each period (fr9 is listed twice in Variables.INDICATORS, so it is written twice)
+		String[] files = {"fr0", "fr1", "fr2", "fr3", "fr4", "fr5", "fr6", "fr7", "fr8", "fr9", "fr9", "fr10", "fr11"};
+
+		// Every period in one pass over the data
+		ArrayList<ArrayList<Double>> fr = FR.fibonacciRetracements(window, periods);
+
+		for (int p = 0; p < periods.length; p++)
+			Write.doubleArrayList(directory+files[p]+".txt", fr.get(p), erase);
 
 	}
 
 
-	private static void movingAverageCrossIndicators(String directory, TechnicalData data, int startIndex, int endIndex, boolean erase) {
+	private static void movingAverageCrossIndicators(String directory, DataWindow window, boolean erase) {
 
-		Write.doubleArrayList(directory+"maCross0.txt",MA.maCross(data, startIndex, endIndex, 10, 75), erase);
-		Write.doubleArrayList(directory+"maCross1.txt",MA.maCross(data, startIndex, endIndex, 10, 50), erase);
-		Write.doubleArrayList(directory+"maCross2.txt",MA.maCross(data, startIndex, endIndex, 10, 100), erase);
-		Write.doubleArrayList(directory+"maCross3.txt",MA.maCross(data, startIndex, endIndex, 50, 100), erase);
-		Write.doubleArrayList(directory+"maCross4.txt",MA.maCross(data, startIndex, endIndex, 50, 200), erase);
-		Write.doubleArrayList(directory+"maCross5.txt",MA.maCross(data, startIndex, endIndex, 10*Variables.PIM, 21*Variables.PIM), erase);
-		Write.doubleArrayList(directory+"maCross6.txt",MA.maCross(data, startIndex, endIndex, 10*Variables.PIM, 75*Variables.PIM), erase);
-		Write.doubleArrayList(directory+"maCross7.txt",MA.maCross(data, startIndex, endIndex, 21*Variables.PIM, 100*Variables.PIM), erase);
-		Write.doubleArrayList(directory+"maCross8.txt",MA.maCross(data, startIndex, endIndex, 21*Variables.PIM, 150*Variables.PIM), erase);
-		Write.doubleArrayList(directory+"maCross9.txt",MA.maCross(data, startIndex, endIndex, 50*Variables.PIM, 150*Variables.PIM), erase);
-		Write.doubleArrayList(directory+"maCross10.txt",MA.maCross(data, startIndex, endIndex, 50*Variables.PIM, 200*Variables.PIM), erase);
+		Write.doubleArrayList(directory+"maCross0.txt",MA.maCross(window, 10, 75), erase);
+		Write.doubleArrayList(directory+"maCross1.txt",MA.maCross(window, 10, 50), erase);
+		Write.doubleArrayList(directory+"maCross2.txt",MA.maCross(window, 10, 100), erase);
+		Write.doubleArrayList(directory+"maCross3.txt",MA.maCross(window, 50, 100), erase);
+		Write.doubleArrayList(directory+"maCross4.txt",MA.maCross(window, 50, 200), erase);
+		Write.doubleArrayList(directory+"maCross5.txt",MA.maCross(window, 10*Variables.PIM, 21*Variables.PIM), erase);
+		Write.doubleArrayList(directory+"maCross6.txt",MA.maCross(window, 10*Variables.PIM, 75*Variables.PIM), erase);
+		Write.doubleArrayList(directory+"maCross7.txt",MA.maCross(window, 21*Variables.PIM, 100*Variables.PIM), erase);
+		Write.doubleArrayList(directory+"maCross8.txt",MA.maCross(window, 21*Variables.PIM, 150*Variables.PIM), erase);
+		Write.doubleArrayList(directory+"maCross9.txt",MA.maCross(window, 50*Variables.PIM, 150*Variables.PIM), erase);
+		Write.doubleArrayList(directory+"maCross10.txt",MA.maCross(window, 50*Variables.PIM, 200*Variables.PIM), erase);
 
 	}
 
 
-	private static void movingAverageScoreIndicators(String directory, TechnicalData data, int startIndex, int endIndex, boolean erase) {
+	private static void movingAverageScoreIndicators(String directory, DataWindow window, boolean erase) {
 
-		Write.doubleArrayList(directory+"ma0.txt",MA.maScores(data, startIndex, endIndex, 10, 3), erase);
-		Write.doubleArrayList(directory+"ma1.txt",MA.maScores(data, startIndex, endIndex, 50, 3), erase);
-		Write.doubleArrayList(directory+"ma2.txt",MA.maScores(data, startIndex, endIndex, 75, 3), erase);
-		Write.doubleArrayList(directory+"ma3.txt",MA.maScores(data, startIndex, endIndex, 100, 3), erase);
-		Write.doubleArrayList(directory+"ma4.txt",MA.maScores(data, startIndex, endIndex, 150, 3), erase);
-		Write.doubleArrayList(directory+"ma5.txt",MA.maScores(data, startIndex, endIndex, 200, 3), erase);
-		Write.doubleArrayList(directory+"ma6.txt",MA.maScores(data, startIndex, endIndex, 10*Variables.PIM, 3), erase);
-		Write.doubleArrayList(directory+"ma7.txt",MA.maScores(data, startIndex, endIndex, 21*Variables.PIM, 3), erase);
-		Write.doubleArrayList(directory+"ma8.txt",MA.maScores(data, startIndex, endIndex, 50*Variables.PIM, 3), erase);
-		Write.doubleArrayList(directory+"ma9.txt",MA.maScores(data, startIndex, endIndex, 75*Variables.PIM, 3), erase);
-		Write.doubleArrayList(directory+"ma10.txt",MA.maScores(data, startIndex, endIndex, 100*Variables.PIM, 3), erase);
-		Write.doubleArrayList(directory+"ma11.txt",MA.maScores(data, startIndex, endIndex, 110*Variables.PIM, 3), erase);
-		Write.doubleArrayList(directory+"ma12.txt",MA.maScores(data, startIndex, endIndex, 125*Variables.PIM, 3), erase);
+		Write.doubleArrayList(directory+"ma0.txt",MA.maScores(window, 10, 3), erase);
+		Write.doubleArrayList(directory+"ma1.txt",MA.maScores(window, 50, 3), erase);
+		Write.doubleArrayList(directory+"ma2.txt",MA.maScores(window, 75, 3), erase);
+		Write.doubleArrayList(directory+"ma3.txt",MA.maScores(window, 100, 3), erase);
+		Write.doubleArrayList(directory+"ma4.txt",MA.maScores(window, 150, 3), erase);
+		Write.doubleArrayList(directory+"ma5.txt",MA.maScores(window, 200, 3), erase);
+		Write.doubleArrayList(directory+"ma6.txt",MA.maScores(window, 10*Variables.PIM, 3), erase);
+		Write.doubleArrayList(directory+"ma7.txt",MA.maScores(window, 21*Variables.PIM, 3), erase);
+		Write.doubleArrayList(directory+"ma8.txt",MA.maScores(window, 50*Variables.PIM, 3), erase);
+		Write.doubleArrayList(directory+"ma9.txt",MA.maScores(window, 75*Variables.PIM, 3), erase);
+		Write.doubleArrayList(directory+"ma10.txt",MA.maScores(window, 100*Variables.PIM, 3), erase);
+		Write.doubleArrayList(directory+"ma11.txt",MA.maScores(window, 110*Variables.PIM, 3), erase);
+		Write.doubleArrayList(directory+"ma12.txt",MA.maScores(window, 125*Variables.PIM, 3), erase);
 
 	}
 
@@ -378,100 +440,67 @@ public class IndicatorScores extends Thread {
 	}
 
 
-	private static void onBalanceVolumeIndicators(String directory, TechnicalData data, int startIndex, int endIndex, boolean erase) {
+	private static void onBalanceVolumeIndicators(String directory, DataWindow window, boolean erase) {
 
-		Write.doubleArrayList(directory+"obv0.txt", OBV.obvScores(data, startIndex, endIndex, 10, 3), erase);
-		Write.doubleArrayList(directory+"obv1.txt", OBV.obvScores(data, startIndex, endIndex, 15, 3), erase);
-		Write.doubleArrayList(directory+"obv2.txt", OBV.obvScores(data, startIndex, endIndex, 25, 3), erase);
-		Write.doubleArrayList(directory+"obv3.txt", OBV.obvScores(data, startIndex, endIndex, 50, 3), erase);
-		Write.doubleArrayList(directory+"obv4.txt", OBV.obvScores(data, startIndex, endIndex, 100, 3), erase);
-		Write.doubleArrayList(directory+"obv5.txt", OBV.obvScores(data, startIndex, endIndex, 150, 3), erase);
-		Write.doubleArrayList(directory+"obv6.txt", OBV.obvScores(data, startIndex, endIndex, 200, 3), erase);
-		Write.doubleArrayList(directory+"obv7.txt", OBV.obvScores(data, startIndex, endIndex, 10*Variables.PIM, 3), erase);
-		Write.doubleArrayList(directory+"obv8.txt", OBV.obvScores(data, startIndex, endIndex, 15*Variables.PIM, 3), erase);
-		Write.doubleArrayList(directory+"obv9.txt", OBV.obvScores(data, startIndex, endIndex, 25*Variables.PIM, 3), erase);
-		Write.doubleArrayList(directory+"obv10.txt", OBV.obvScores(data, startIndex, endIndex, 50*Variables.PIM, 3), erase);
-		Write.doubleArrayList(directory+"obv11.txt", OBV.obvScores(data, startIndex, endIndex, 100*Variables.PIM, 3), erase);
-		Write.doubleArrayList(directory+"obv12.txt", OBV.obvScores(data, startIndex, endIndex, 150*Variables.PIM, 3), erase);
-		Write.doubleArrayList(directory+"obv13.txt", OBV.obvScores(data, startIndex, endIndex, 175*Variables.PIM, 3), erase);
+		int[] periods = {10, 15, 25, 50, 100, 150, 200, 10*Variables.PIM, 15*Variables.PIM, 25*Variables.PIM,
+				50*Variables.PIM, 100*Variables.PIM, 150*Variables.PIM, 175*Variables.PIM};
 
-	}
+		// obv and obvMA of every period from one array of volume x price change
+		ArrayList<ArrayList<Double>> obv = OBV.onBalanceVolumeScores(window, periods, 3);
 
+		for (int p = 0; p < periods.length; p++) {
+			Write.doubleArrayList(directory+"obv"+p+".txt", obv.get(p), erase);
+			Write.doubleArrayList(directory+"obvMA"+p+".txt", obv.get(periods.length + p), erase);
+		}
 
-	private static void onBalanceVolumeMovingAverageIndicators(String directory, TechnicalData data, int startIndex, int endIndex, boolean erase) {
+	}
 
-		Write.doubleArrayList(directory+"obvMA0.txt", OBV.obvMAScores(data, startIndex, endIndex, 10, 3), erase);
-		Write.doubleArrayList(directory+"obvMA1.txt", OBV.obvMAScores(data, startIndex, endIndex, 15, 3), erase);
-		Write.doubleArrayList(directory+"obvMA2.txt", OBV.obvMAScores(data, startIndex, endIndex, 25, 3), erase);
-		Write.doubleArrayList(directory+"obvMA3.txt", OBV.obvMAScores(data, startIndex, endIndex, 50, 3), erase);
-		Write.doubleArrayList(directory+"obvMA4.txt", OBV.obvMAScores(data, startIndex, endIndex, 100, 3), erase);
-		Write.doubleArrayList(directory+"obvMA5.txt", OBV.obvMAScores(data, startIndex, endIndex, 150, 3), erase);
-		Write.doubleArrayList(directory+"obvMA6.txt", OBV.obvMAScores(data, startIndex, endIndex, 200, 3), erase);
-		Write.doubleArrayList(directory+"obvMA7.txt", OBV.obvMAScores(data, startIndex, endIndex, 10*Variables.PIM, 3), erase);
-		Write.doubleArrayList(directory+"obvMA8.txt", OBV.obvMAScores(data, startIndex, endIndex, 15*Variables.PIM, 3), erase);
-		Write.doubleArrayList(directory+"obvMA9.txt", OBV.obvMAScores(data, startIndex, endIndex, 25*Variables.PIM, 3), erase);
-		Write.doubleArrayList(directory+"obvMA10.txt", OBV.obvMAScores(data, startIndex, endIndex, 50*Variables.PIM, 3), erase);
-		Write.doubleArrayList(directory+"obvMA11.txt", OBV.obvMAScores(data, startIndex, endIndex, 100*Variables.PIM, 3), erase);
-		Write.doubleArrayList(directory+"obvMA12.txt", OBV.obvMAScores(data, startIndex, endIndex, 150*Variables.PIM, 3), erase);
-		Write.doubleArrayList(directory+"obvMA13.txt", OBV.obvMAScores(data, startIndex, endIndex, 175*Variables.PIM, 3), erase);
 
-	}
+	private static void relativeStrengthIndexIndicators(String directory, DataWindow window, boolean erase) {
 
+		int[] periods = {9, 14, 25, 50, 100, 150, 200, 9*Variables.PIM, 14*Variables.PIM, 25*Variables.PIM,
+				50*Variables.PIM, 100*Variables.PIM, 150*Variables.PIM, 175*Variables.PIM};
 
-	private static void relativeStrengthIndexIndicators(String directory, TechnicalData data, int startIndex, int endIndex, boolean erase) {
+		// Every period in one pass over the close deltas
+		ArrayList<ArrayList<Double>> rsi = RSI.relativeStrengthIndexes(window, periods);
 
-		Write.doubleArrayList(directory+"rsi0.txt", RSI.relativeStrengthIndex(data, startIndex, endIndex, 9), erase);
-		Write.doubleArrayList(directory+"rsi1.txt", RSI.relativeStrengthIndex(data, startIndex, endIndex, 14), erase);
-		Write.doubleArrayList(directory+"rsi2.txt", RSI.relativeStrengthIndex(data, startIndex, endIndex, 25), erase);
-		Write.doubleArrayList(directory+"rsi3.txt", RSI.relativeStrengthIndex(data, startIndex, endIndex, 50), erase);
-		Write.doubleArrayList(directory+"rsi4.txt", RSI.relativeStrengthIndex(data, startIndex, endIndex, 100), erase);
-		Write.doubleArrayList(directory+"rsi5.txt", RSI.relativeStrengthIndex(data, startIndex, endIndex, 150), erase);
-		Write.doubleArrayList(directory+"rsi6.txt", RSI.relativeStrengthIndex(data, startIndex, endIndex, 200), erase);
-		Write.doubleArrayList(directory+"rsi7.txt", RSI.relativeStrengthIndex(data, startIndex, endIndex, 9*Variables.PIM), erase);
-		Write.doubleArrayList(directory+"rsi8.txt", RSI.relativeStrengthIndex(data, startIndex, endIndex, 14*Variables.PIM), erase);
-		Write.doubleArrayList(directory+"rsi9.txt", RSI.relativeStrengthIndex(data, startIndex, endIndex, 25*Variables.PIM), erase);
-		Write.doubleArrayList(directory+"rsi10.txt", RSI.relativeStrengthIndex(data, startIndex, endIndex, 50*Variables.PIM), erase);
-		Write.doubleArrayList(directory+"rsi11.txt", RSI.relativeStrengthIndex(data, startIndex, endIndex, 100*Variables.PIM), erase);
-		Write.doubleArrayList(directory+"rsi12.txt", RSI.relativeStrengthIndex(data, startIndex, endIndex, 150*Variables.PIM), erase);
-		Write.doubleArrayList(directory+"rsi13.txt", RSI.relativeStrengthIndex(data, startIndex, endIndex, 175*Variables.PIM), erase);
+		for (int p = 0; p < periods.length; p++)
+			Write.doubleArrayList(directory+"rsi"+p+".txt", rsi.get(p), erase);
 
 	}
 
 
-	private static void relativeStrengthIndexMovingAverageIndicators(String directory, TechnicalData data, int startIndex, int endIndex, boolean erase) {
+	private static void relativeStrengthIndexMovingAverageIndicators(String directory, DataWindow window, boolean erase) {
 
-		Write.doubleArrayList(directory+"rsiMA0.txt", RSI.rsiMA(data, startIndex, endIndex, 9, 1, 10), erase);
-		Write.doubleArrayList(directory+"rsiMA1.txt", RSI.rsiMA(data, startIndex, endIndex, 14, 1, 10), erase);
-		Write.doubleArrayList(directory+"rsiMA2.txt", RSI.rsiMA(data, startIndex, endIndex, 25, 1, 10), erase);
-		Write.doubleArrayList(directory+"rsiMA3.txt", RSI.rsiMA(data, startIndex, endIndex, 9*Variables.PIM, 1, 10), erase);
-		Write.doubleArrayList(directory+"rsiMA4.txt", RSI.rsiMA(data, startIndex, endIndex, 14*Variables.PIM, 1, 10), erase);
-		Write.doubleArrayList(directory+"rsiMA5.txt", RSI.rsiMA(data, startIndex, endIndex, 25*Variables.PIM, 1, 10), erase);
-		Write.doubleArrayList(directory+"rsiMA6.txt", RSI.rsiMA(data, startIndex, endIndex, 9*Variables.PIM, Variables.PIM, 10), erase);
-		Write.doubleArrayList(directory+"rsiMA7.txt", RSI.rsiMA(data, startIndex, endIndex, 14*Variables.PIM, Variables.PIM, 10), erase);
-		Write.doubleArrayList(directory+"rsiMA8.txt", RSI.rsiMA(data, startIndex, endIndex, 25*Variables.PIM, Variables.PIM, 10), erase);
-		Write.doubleArrayList(directory+"rsiMA9.txt", RSI.rsiMA(data, startIndex, endIndex, 9*Variables.PIM, 10*Variables.PIM, 10), erase);
-		Write.doubleArrayList(directory+"rsiMA10.txt", RSI.rsiMA(data, startIndex, endIndex, 14*Variables.PIM, 10*Variables.PIM, 10), erase);
-		Write.doubleArrayList(directory+"rsiMA11.txt", RSI.rsiMA(data, startIndex, endIndex, 25*Variables.PIM, 10*Variables.PIM, 10), erase);
+		int[] periods = {9, 14, 25, 9*Variables.PIM, 14*Variables.PIM, 25*Variables.PIM,
+				9*Variables.PIM, 14*Variables.PIM, 25*Variables.PIM, 9*Variables.PIM, 14*Variables.PIM, 25*Variables.PIM};
+		int[] cfs = {1, 1, 1, 1, 1, 1, Variables.PIM, Variables.PIM, Variables.PIM,
+				10*Variables.PIM, 10*Variables.PIM, 10*Variables.PIM};
+
+		ArrayList<ArrayList<Double>> rsiMA = RSI.rsiMAs(window, periods, cfs, 10);
+
+		for (int p = 0; p < periods.length; p++)
+			Write.doubleArrayList(directory+"rsiMA"+p+".txt", rsiMA.get(p), erase);
 
 	}
 
 
-	private static void stochasticMomentumIndexIndicators(String directory, TechnicalData data, int startIndex, int endIndex, boolean erase) {
+	private static void stochasticMomentumIndexIndicators(String directory, DataWindow window, boolean erase) {
 
-		Write.doubleArrayList(directory+"smi0.txt", SMI.stochasticMomentumIndex(data, startIndex, endIndex, 9), erase);
-		Write.doubleArrayList(directory+"smi1.txt", SMI.stochasticMomentumIndex(data, startIndex, endIndex, 14), erase);
-		Write.doubleArrayList(directory+"smi2.txt", SMI.stochasticMomentumIndex(data, startIndex, endIndex, 25), erase);
-		Write.doubleArrayList(directory+"smi3.txt", SMI.stochasticMomentumIndex(data, startIndex, endIndex, 50), erase);
-		Write.doubleArrayList(directory+"smi4.txt", SMI.stochasticMomentumIndex(data, startIndex, endIndex, 100), erase);
-		Write.doubleArrayList(directory+"smi5.txt", SMI.stochasticMomentumIndex(data, startIndex, endIndex, 150), erase);
-		Write.doubleArrayList(directory+"smi6.txt", SMI.stochasticMomentumIndex(data, startIndex, endIndex, 200), erase);
-		Write.doubleArrayList(directory+"smi7.txt", SMI.stochasticMomentumIndex(data, startIndex, endIndex, 9*Variables.PIM), erase);
-		Write.doubleArrayList(directory+"smi8.txt", SMI.stochasticMomentumIndex(data, startIndex, endIndex, 14*Variables.PIM), erase);
-		Write.doubleArrayList(directory+"smi9.txt", SMI.stochasticMomentumIndex(data, startIndex, endIndex, 25*Variables.PIM), erase);
-		Write.doubleArrayList(directory+"smi10.txt", SMI.stochasticMomentumIndex(data, startIndex, endIndex, 50*Variables.PIM), erase);
-		Write.doubleArrayList(directory+"smi11.txt", SMI.stochasticMomentumIndex(data, startIndex, endIndex, 100*Variables.PIM), erase);
-		Write.doubleArrayList(directory+"smi12.txt", SMI.stochasticMomentumIndex(data, startIndex, endIndex, 150*Variables.PIM), erase);
-		Write.doubleArrayList(directory+"smi13.txt", SMI.stochasticMomentumIndex(data, startIndex, endIndex, 175*Variables.PIM), erase);
+		Write.doubleArrayList(directory+"smi0.txt", SMI.stochasticMomentumIndex(window, 9), erase);
+		Write.doubleArrayList(directory+"smi1.txt", SMI.stochasticMomentumIndex(window, 14), erase);
+		Write.doubleArrayList(directory+"smi2.txt", SMI.stochasticMomentumIndex(window, 25), erase);
+		Write.doubleArrayList(directory+"smi3.txt", SMI.stochasticMomentumIndex(window, 50), erase);
+		Write.doubleArrayList(directory+"smi4.txt", SMI.stochasticMomentumIndex(window, 100), erase);
+		Write.doubleArrayList(directory+"smi5.txt", SMI.stochasticMomentumIndex(window, 150), erase);
+		Write.doubleArrayList(directory+"smi6.txt", SMI.stochasticMomentumIndex(window, 200), erase);
+		Write.doubleArrayList(directory+"smi7.txt", SMI.stochasticMomentumIndex(window, 9*Variables.PIM), erase);
+		Write.doubleArrayList(directory+"smi8.txt", SMI.stochasticMomentumIndex(window, 14*Variables.PIM), erase);
+		Write.doubleArrayList(directory+"smi9.txt", SMI.stochasticMomentumIndex(window, 25*Variables.PIM), erase);
+		Write.doubleArrayList(directory+"smi10.txt", SMI.stochasticMomentumIndex(window, 50*Variables.PIM), erase);
+		Write.doubleArrayList(directory+"smi11.txt", SMI.stochasticMomentumIndex(window, 100*Variables.PIM), erase);
+		Write.doubleArrayList(directory+"smi12.txt", SMI.stochasticMomentumIndex(window, 150*Variables.PIM), erase);
+		Write.doubleArrayList(directory+"smi13.txt", SMI.stochasticMomentumIndex(window, 175*Variables.PIM), erase);
 
 	}
 
@@ -492,20 +521,16 @@ public class IndicatorScores extends Thread {
 
 	}
 
-	private static void volumeStrengthIndicators(String directory, TechnicalData data, int startIndex, int endIndex, boolean erase) {
+	private static void volumeStrengthIndicators(String directory, DataWindow window, boolean erase) {
+
+		int[] periods = {10, 25, 50, 100, 150, 200, 10*Variables.PIM, 25*Variables.PIM, 50*Variables.PIM,
+				100*Variables.PIM, 150*Variables.PIM, 175*Variables.PIM};
 
-		Write.doubleArrayList(directory+"vs0.txt", VS.volStrength(data, startIndex, endIndex, 10, 3), erase);
-		Write.doubleArrayList(directory+"vs1.txt", VS.volStrength(data, startIndex, endIndex, 25, 3), erase);
-		Write.doubleArrayList(directory+"vs2.txt", VS.volStrength(data, startIndex, endIndex, 50, 3), erase);
-		Write.doubleArrayList(directory+"vs3.txt", VS.volStrength(data, startIndex, endIndex, 100, 3), erase);
-		Write.doubleArrayList(directory+"vs4.txt", VS.volStrength(data, startIndex, endIndex, 150, 3), erase);
-		Write.doubleArrayList(directory+"vs5.txt", VS.volStrength(data, startIndex, endIndex, 200, 3), erase);
-		Write.doubleArrayList(directory+"vs6.txt", VS.volStrength(data, startIndex, endIndex, 10*Variables.PIM, 3), erase);
-		Write.doubleArrayList(directory+"vs7.txt", VS.volStrength(data, startIndex, endIndex, 25*Variables.PIM, 3), erase);
-		Write.doubleArrayList(directory+"vs8.txt", VS.volStrength(data, startIndex, endIndex, 50*Variables.PIM, 3), erase);
-		Write.doubleArrayList(directory+"vs9.txt", VS.volStrength(data, startIndex, endIndex, 100*Variables.PIM, 3), erase);
-		Write.doubleArrayList(directory+"vs10.txt", VS.volStrength(data, startIndex, endIndex, 150*Variables.PIM, 3), erase);
-		Write.doubleArrayList(directory+"vs11.txt", VS.volStrength(data, startIndex, endIndex, 175*Variables.PIM, 3), erase);
+		// Every period from one array of volume prefix sums
+		ArrayList<ArrayList<Double>> vs = VS.volStrengths(window, periods);
+
+		for (int p = 0; p < periods.length; p++)
+			Write.doubleArrayList(directory+"vs"+p+".txt", vs.get(p), erase);
 
 	}
 
@@ -593,6 +618,14 @@ public class IndicatorScores extends Thread {
 	public static double[] getIndicatorRange(String symbol, String indicator) {
 
 
+		// Range recorded when scores were written (see Catalog)
+		Catalog.Series series = Catalog.series(Variables.LEVEL_1 + symbol + "/" + indicator + ".txt");
+
+		if (series != null && series.length() > 0) {
+			double[] node = {series.min(), series.max()};
+			return node;
+		}
+
 		// Initialize necessary variables
 		ArrayList<Double> list = getIndicatorScores(symbol, indicator);
 
@@ -614,12 +647,18 @@ public class IndicatorScores extends Thread {
 	////////////////////////////////////////////////////////////////////////////////////////////////
 
 
-	/** Attempt to read from each symbol-indicator combination and recall technical analysis if error */
+	/**
+	 * Attempt to read from each symbol-indicator combination and recall technical analysis if error.
+	 * Files cataloged with scores since they were written are not read again.
+	 */
 	public static void authenticate(String start, String end) {
 
 		for (String symbol : Variables.SYMBOLS) {
 			for (String indicator : Variables.INDICATORS)  {
 
+				Catalog.Series series = Catalog.series(Variables.LEVEL_1 + symbol + "/" + indicator + ".txt");
+				if (series != null && series.length() > 0) continue;
+
 				try {
 
 					ArrayList<Double> list = getIndicatorScores(symbol, indicator);
@@ -628,21 +667,17 @@ public class IndicatorScores extends Thread {
 					while (list.size() == 0) {
 						System.out.println("Authentication Building: " + symbol + "(" + indicator + ")");
 						
-						TechnicalData data = new TechnicalData(symbol);
-						int startIndex = data.getIndexByTimeStamp(start);
-						int endIndex = data.getIndexByTimeStamp(end);
+						TechnicalData data = TechnicalDataRegistry.get(symbol, start, end, requiredLookback());
 
-						technicalAnalysis(data, symbol, startIndex, endIndex, true);
+						// Data set too short for indicators (rebuilding will not help)
+						if (!technicalAnalysis(data, symbol, start, end, true)) break;
 						list = getIndicatorScores(symbol, indicator);
 					}
 					
 				} catch (Exception e) {
 
-					TechnicalData data = new TechnicalData(symbol);
-					int startIndex = data.getIndexByTimeStamp(start);
-					int endIndex = data.getIndexByTimeStamp(end);
-
-					technicalAnalysis(data, symbol, startIndex, endIndex, true);
+					TechnicalData data = TechnicalDataRegistry.get(symbol, start, end, requiredLookback());
+					technicalAnalysis(data, symbol, start, end, true);
 
 				}	
 			}
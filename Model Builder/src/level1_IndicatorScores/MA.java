@@ -1,20 +1,29 @@
 package level1_IndicatorScores;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
+import level0_TechnicalData.DataWindow;
+import level0_TechnicalData.SlidingExtreme;
 import level0_TechnicalData.TechnicalData;
 import model.Model;
 
 public class MA {
 
 
+	private static final double ULP = Math.ulp(1.0);		// Relative rounding error of a double (2^-52)
+
+
 	/////////////////////////////////////////////////////////////////////////////////////////////////
 	// Wrapper Method for Simple Moving Average Normalized Score Calculations
 	/////////////////////////////////////////////////////////////////////////////////////////////////
 
 
 	/**
-	 * Calculate list of moving averages for a given stock data set
+	 * Calculate list of moving averages for a given stock data set.  Moving averages come from a
+	 * rolling sum and the normalization range from sliding max / min deques, so each score takes
+	 * O(1) time whatever the period.  A rolling sum can differ from movingAverage in the last bits,
+	 * so a score whose error bound crosses a 6 decimal step is recalculated exactly (see exactScore).
 	 * @param data Data set being used
 	 * @param start Index to begin calculating moving averages for
 	 * @param end Last index to have moving average calculated for
@@ -23,22 +32,73 @@ public class MA {
 	 * @return List of values in range of [-1,1] based on close proximity to moving average
 	 */
 	public static ArrayList<Double> maScores(TechnicalData data, int start, int end, int period, int npl) {
+		return maScores(data.closes(), start, end, period, npl);
+	}
+
+
+	/**
+	 * maScores over a validated window (closes are read straight from the window's column)
+	 * @param window Data window with at least lookback(period, npl) periods before start
+	 * @param period How far to take moving average of data
+	 * @param npl Normalization period length multiplier
+	 * @return List of values in range of [-1,1] based on close proximity to moving average
+	 */
+	public static ArrayList<Double> maScores(DataWindow window, int period, int npl) {
+		window.require(lookback(period, npl));
+		return maScores(window.closes(), window.start(), window.end(), period, npl);
+	}
+
+
+	/** maScores of closes start -> end (indexes before start - lookback(period, npl) are not read) */
+	private static ArrayList<Double> maScores(double[] close, int start, int end, int period, int npl) {
 
 		int rangeLimit = period * npl;
-		ArrayList<Double> movingAverages = new ArrayList<Double>();		
 		ArrayList<Double> list = new ArrayList<Double>();
 
 		// Calculate Moving Averages (begin at earlier index for normalization range needs)
-		for (int i = start - (period * npl); i <= end; i++)
-			movingAverages.add(movingAverage(data, i, period));
+		int first = start - rangeLimit;
+		double[] movingAverages = movingAverageArray(close, first, end, period);
+
+		// Close - moving average of each index, and how far each can be from the exact value
+		double[] x = new double[movingAverages.length];
+		for (int i = first; i <= end; i++) x[i - first] = close[i] - movingAverages[i - first];
+
+		double error = averageError(close, first, end, period) + 4 * ULP * maxClose(close, first, end);
+
+		// Highest and lowest close - moving average over last rangeLimit + 1 periods
+		SlidingExtreme max = new SlidingExtreme(rangeLimit + 1, true);
+		SlidingExtreme min = new SlidingExtreme(rangeLimit + 1, false);
+		double[] exact = null;
 
 		// Convert Moving Averages into score values
-		for (int i = start; i <= end; i++) 
-			list.add(
-					Model.round(
-							normalize(data, i, start, rangeLimit, movingAverages)
-							,6)
-					);
+		for (int i = first; i <= end; i++) {
+
+			max.push(i, x[i - first]);
+			min.push(i, x[i - first]);
+
+			if (i < start) continue;
+
+			max.evictBefore(i - rangeLimit);
+			min.evictBefore(i - rangeLimit);
+
+			double[] range = {max.get(), min.get()};
+			double score = rescale(close[i], movingAverages[i - first], range);
+
+			// Scores are in [0, 1], so only the part of the error bound in [0, 1] can be reached
+			double bound = 2 * (4 * error / (range[0] - range[1] - 2 * error) + 8 * ULP);
+			double low = Math.max(0.0, score - bound);
+			double high = Math.min(1.0, score + bound);
+
+			if (bound >= 0 && Model.round(low, 6) == Model.round(high, 6)) {
+				list.add(Model.round(score, 6));
+			} else {
+				if (exact == null) {
+					exact = new double[x.length];
+					Arrays.fill(exact, Double.NaN);
+				}
+				list.add(exactScore(close, i, first, period, rangeLimit, x, range, 2 * error, exact));
+			}
+		}
 
 		return list;
 
@@ -60,11 +120,58 @@ public class MA {
 		
 		ArrayList<Double> list = new ArrayList<Double>();
 		
-		for (int i = start; i <= end; i++)
-			list.add(movingAverage(data, i, period));
+		for (double value : movingAverageArray(data.closes(), start, end, period))
+			list.add(value);
 		
 		return list;
 	}
+
+
+	/**
+	 * movingAverage(close, i, period) for each i in start -> end, kept as a compensated rolling sum
+	 * so each value takes O(1) time.  Values can differ from movingAverage (which adds the window
+	 * from scratch) by at most averageError, so callers that truncate or compare averages recheck
+	 * values within that distance of a step or tie.
+	 * @param close Closes of data set being used
+	 * @param start First index to calculate moving average for
+	 * @param end Last index to calculate moving average for
+	 * @param period Period to calculate moving average for
+	 * @return Moving average of each index start -> end (NaN for indexes before 0)
+	 */
+	static double[] movingAverageArray(double[] close, int start, int end, int period) {
+
+		double[] averages = new double[Math.max(0, end - start + 1)];
+		if (averages.length == 0) return averages;
+
+		RollingSum sum = new RollingSum();
+
+		// Window of first index (indexes before 0 have no closes, see movingAverage)
+		for (int i = Math.max(0, start - period + 1); i <= start; i++) sum.add(close[i]);
+
+		for (int i = start; i <= end; i++) {
+
+			if (i > start) {
+				if (i >= 0) sum.add(close[i]);
+				if (i - period >= 0) sum.subtract(close[i - period]);
+			}
+
+			// Periods at beginning of data set average every close so far
+			averages[i - start] = i < 0 ? Double.NaN : sum.sum() / Math.min(period, i + 1);
+		}
+
+		return averages;
+	}
+
+
+	/**
+	 * Most that movingAverageArray can differ from movingAverage for indexes start -> end.  Adding
+	 * period closes one by one is off by at most (period - 1) rounding errors of the largest close,
+	 * the rolling sum by about 2, and the division by 1.
+	 * @return Error bound of each moving average
+	 */
+	static double averageError(double[] close, int start, int end, int period) {
+		return (period + 3) * ULP * maxClose(close, start - period + 1, end);
+	}
 	
 
 	/////////////////////////////////////////////////////////////////////////////////////////////////
@@ -83,14 +190,43 @@ public class MA {
 	 * @return When p1 was greater than p0 (True)
 	 */
 	public static ArrayList<Double> maCross(TechnicalData data, int start, int end, int p0, int p1) {
+		return maCross(data.closes(), start, end, p0, p1);
+	}
+
+
+	/**
+	 * maCross over a validated window, so every average is over a full period
+	 * @param window Data window with at least lookback(max(p0, p1), 0) periods before start
+	 * @param p0 First moving average period length
+	 * @param p1 Second moving average period length
+	 * @return When p1 was greater than p0 (True)
+	 */
+	public static ArrayList<Double> maCross(DataWindow window, int p0, int p1) {
+		window.require(lookback(Math.max(p0, p1), 0));
+		return maCross(window.closes(), window.start(), window.end(), p0, p1);
+	}
+
+
+	/** maCross of closes start -> end (averages before a full period use every close so far) */
+	private static ArrayList<Double> maCross(double[] close, int start, int end, int p0, int p1) {
 		
-		ArrayList<Double> ma0 = movingAverages(data, start, end, p0);
-		ArrayList<Double> ma1 = movingAverages(data, start, end, p1);
+		double[] ma0 = movingAverageArray(close, start, end, p0);
+		double[] ma1 = movingAverageArray(close, start, end, p1);
+		double error = averageError(close, start, end, p0) + averageError(close, start, end, p1);
 		ArrayList<Double> list = new ArrayList<Double>();
 		
-		for (int i = 0; i < ma0.size(); i++) {
+		for (int i = start; i <= end; i++) {
+
+			double a = ma0[i - start];
+			double b = ma1[i - start];
+
+			// Averages this close may be ordered differently when added from scratch
+			if (Math.abs(a - b) <= error) {
+				a = movingAverage(close, i, p0);
+				b = movingAverage(close, i, p1);
+			}
 			
-		if (ma0.get(i) > ma1.get(i)) list.add(0.0);
+		if (a > b) list.add(0.0);
 		else list.add(1.0);
 		
 		}
@@ -112,6 +248,12 @@ public class MA {
 	 * @return Moving average value at given index
 	 */
 	public static double movingAverage(TechnicalData data, int index, int period) {
+		return movingAverage(data.closes(), index, period);
+	}
+
+
+	/** movingAverage of closes (see above) */
+	private static double movingAverage(double[] close, int index, int period) {
 
 		double sum = 0.0;
 		
@@ -121,7 +263,7 @@ public class MA {
 			int count = 0;
 			
 			for (int i = 0; i <= index; i++) {
-				sum += data.close(i);
+				sum += close[i];
 				count++;
 			}
 			
@@ -129,7 +271,7 @@ public class MA {
 		
 		} else { 
 		
-			for (int i = index - period + 1; i <= index; i++) sum += data.close(i);
+			for (int i = index - period + 1; i <= index; i++) sum += close[i];
 			return sum / period;
 		}
 	}
@@ -157,6 +299,63 @@ public class MA {
 	}
 
 
+	/**
+	 * Score of index from moving averages added from scratch (same value as the O(period * npl)
+	 * normalize).  Only closes - moving averages that can be the extreme of the range (within
+	 * tolerance of the rolling max or min) are recalculated.
+	 * @param i Index to score
+	 * @param first Index of x[0]
+	 * @param x Close - rolling moving average of each index
+	 * @param range Rolling max and min of x over the range of i
+	 * @param tolerance Most an x value and its exact value can differ, twice over
+	 * @param exact Exact x values already calculated (NaN = not yet)
+	 * @return Score truncated to 6 decimals
+	 */
+	private static double exactScore(double[] close, int i, int first, int period, int rangeLimit,
+			double[] x, double[] range, double tolerance, double[] exact) {
+
+		double movAvg = movingAverage(close, i, period);
+		double max = close[i] - movAvg;
+		double min = max;
+
+		for (int j = i - rangeLimit; j <= i; j++) {
+
+			double value = x[j - first];
+			if (value < range[0] - tolerance && value > range[1] + tolerance) continue;
+
+			value = exactX(close, j, first, period, exact);
+			if (max < value) max = value;
+			if (min > value) min = value;
+		}
+
+		double[] exactRange = {max, min};
+		return Model.round(rescale(close[i], movAvg, exactRange), 6);
+	}
+
+
+	/** @return Close - movingAverage of index j (cached in exact) */
+	private static double exactX(double[] close, int j, int first, int period, double[] exact) {
+
+		double value = exact[j - first];
+
+		if (Double.isNaN(value) && j >= 0) {
+			value = close[j] - movingAverage(close, j, period);
+			exact[j - first] = value;
+		}
+
+		return value;
+	}
+
+
+	/** @return Largest absolute close of indexes start -> end (indexes before 0 are skipped) */
+	private static double maxClose(double[] close, int start, int end) {
+
+		double max = 0.0;
+		for (int i = Math.max(0, start); i <= end; i++) max = Math.max(max, Math.abs(close[i]));
+		return max;
+	}
+
+
 	/**
 	 * Convert close and moving average values to [0, 1] range
 	 * @param close Close value at index
@@ -211,6 +410,22 @@ public class MA {
 	}
 
 
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+	// Lookback
+	/////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	/**
+	 * Number of periods before start that maScores reads (movingAverages and maCross use npl = 0)
+	 * @param period Moving average period
+	 * @param npl Normalization period length multiplier
+	 * @return Required lookback
+	 */
+	public static int lookback(int period, int npl) {
+		return period * npl + period - 1;
+	}
+
+
 	/////////////////////////////////////////////////////////////////////////////////////////////////
 	// Testing
 	/////////////////////////////////////////////////////////////////////////////////////////////////
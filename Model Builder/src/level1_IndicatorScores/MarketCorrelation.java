@@ -2,8 +2,11 @@ package level1_IndicatorScores;
 
 import java.util.ArrayList;
 
+import level0_TechnicalData.MarketPanel;
 import level0_TechnicalData.TechnicalData;
+import level0_TechnicalData.TechnicalDataRegistry;
 import model.Model;
+import model.Variables;
 
 /**
  * Class used to compare two different markets (ETFs)
@@ -22,44 +25,7 @@ public class MarketCorrelation {
 	 * @return Compared values between two markets
 	 */
 	public static ArrayList<Double> compareMarketPrices(TechnicalData data0, String symbol1, int start, int end) {
-
-		TechnicalData data1 = new TechnicalData(symbol1);
-		int index0 = start;
-		int index1;
-		
-		// Offset for start->other data set
-		try {
-			index1 = data1.getIndexByTimeStamp(data0.get(start).getTimeStamp());	
-		} catch (NullPointerException e) {
-			index1 = -1;
-		}	
-		
-		double value0 = 1.0;
-		double value1 = 1.0;
-
-		ArrayList<Double> list = new ArrayList<Double>();
-
-		// Determine if both ETFs are within valid range
-		boolean rangeValid;
-		if (index1 < 0) rangeValid = false; 
-		else rangeValid = true;
-
-		// Compare markets
-		while (index0 <= end) {
-
-			if (rangeValid) {
-				value0 = value0 * (data0.close(index0) / data0.close(index0-1));
-				value1 = value1 * (data1.close(index1) / data1.close(index1-1));
-				index0++; index1++;
-
-				list.add(Model.round(value0-value1, 6));
-			}
-			else {
-				list.add(0.0); index0++;
-			}
-		}
-
-		return list;
+		return compareMarkets(data0, symbol1, start, end, false);
 	}
 
 
@@ -72,41 +38,82 @@ public class MarketCorrelation {
 	 * @return Compared values between two markets
 	 */
 	public static ArrayList<Double> compareMarketVolumes(TechnicalData data0, String symbol1, int start, int end) {
+		return compareMarkets(data0, symbol1, start, end, true);
+	}
+
+
+	/**
+	 * Compare cumulative change of two markets.  Markets are aligned by time on a MarketPanel, so
+	 * each period of data0 is compared to the period of symbol1 at the same time.  If symbol1 has
+	 * no period at that time its value carries over, and if it has no period at start every
+	 * comparison is 0.0.
+	 * @param data0 TechnicalData set analyzing
+	 * @param symbol1 Market to compare data set to
+	 * @param start Index in TechnicalData (data0) to start calculations for
+	 * @param end Index in TechnicalData (data0) to stop calculations for
+	 * @param volume True to compare volumes, false to compare close prices
+	 * @return Compared values between two markets
+	 */
+	private static ArrayList<Double> compareMarkets(TechnicalData data0, String symbol1, int start, int end, boolean volume) {
+
+		ArrayList<Double> list = new ArrayList<Double>(Math.max(0, end - start + 1));
+
+
+		// 1. Align markets ////////////////////////////////////////////////////////////////////////
+
+
+		// Shared panel of universe if data0 is the full cached data and both markets are in it
+		MarketPanel panel = null;
+		int s0 = -1;
+		int s1 = -1;
+
+		if (TechnicalDataRegistry.peek(data0.symbol()) == data0) {
+			panel = MarketPanel.get(Variables.SYMBOLS);
+			s0 = panel.symbolIndex(data0.symbol());
+			s1 = panel.symbolIndex(symbol1);
+		}
+
+		// Otherwise a panel of the pair, loading only the range of symbol1 that data0 covers
+		if (s0 < 0 || s1 < 0 || panel.data(s0).size() != data0.size()) {
+			String first = data0.size() > 0 ? data0.timeStamp(0) : "0000";
+			String last = data0.size() > 0 ? data0.timeStamp(data0.size() - 1) : "0000";
+			panel = new MarketPanel(data0, TechnicalDataRegistry.get(symbol1, first, last, 0));
+			s0 = 0; s1 = 1;
+		}
+
+		TechnicalData data1 = panel.data(s1);
+		int row = start < data0.size() ? panel.row(data0.time(start)) : -1;
+
+		// Determine if both ETFs are within valid range
+		if (row < 0 || !panel.present(s1, row)) {
+			for (int index0 = start; index0 <= end; index0++) list.add(0.0);
+			return list;
+		}
+
+
+		// 2. Compare markets //////////////////////////////////////////////////////////////////////
+
 
-		TechnicalData data1 = new TechnicalData(symbol1);
-
-		int index0 = start;
-		int index1;
-		
-		try {
-			index1 = data1.getIndexByTimeStamp(data0.get(start).getTimeStamp());	// Offset for start->other data set
-		} catch (NullPointerException e) {
-			index1 = -1;
-		}	
-		
 		double value0 = 1.0;
 		double value1 = 1.0;
 
-		ArrayList<Double> list = new ArrayList<Double>();
+		for (int index0 = start; index0 <= end; index0++, row++) {
 
-		// Determine if both ETFs are within valid range
-		boolean rangeValid;
-		if (index1 < 0) rangeValid = false; 
-		else rangeValid = true;
+			// Next time data0 has a period
+			while (!panel.present(s0, row)) row++;
 
-		// Compare markets
-		while (index0 <= end) {
+			int index1 = panel.dataIndex(s1, row);
 
-			if (rangeValid) {
+			if (volume) {
 				value0 = value0 * ((0.0+data0.volume(index0)) / data0.volume(index0-1));
-				value1 = value1 * ((0.0+data1.volume(index1)) / data1.volume(index1-1));
-				index0++; index1++;
-
-				list.add(Model.round(value0-value1 ,6));
+				if (index1 > 0) value1 = value1 * ((0.0+data1.volume(index1)) / data1.volume(index1-1));
 			}
 			else {
-				list.add(0.0); index0++;
+				value0 = value0 * (data0.close(index0) / data0.close(index0-1));
+				if (index1 > 0) value1 = value1 * (data1.close(index1) / data1.close(index1-1));
 			}
+
+			list.add(Model.round(value0-value1, 6));
 		}
 
 		return list;
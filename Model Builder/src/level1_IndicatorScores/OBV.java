@@ -1,7 +1,10 @@
 package level1_IndicatorScores;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
+import level0_TechnicalData.DataWindow;
+import level0_TechnicalData.SlidingExtreme;
 import level0_TechnicalData.TechnicalData;
 import model.Model;
 import model.Variables;
@@ -40,8 +43,7 @@ public class OBV {
 	 */
 	public static ArrayList<Double> obvScores(TechnicalData data, int start, int end, int period, int perMult) {
 
-		ArrayList<Double> obv = obv(data, start-(period*perMult), end);
-		return normalize(obv, start, period*perMult);
+		return scores(data.closes(), data.volumes(), start, end, new int[] {period}, perMult, true, false).get(0);
 		
 	}
 	
@@ -57,12 +59,86 @@ public class OBV {
 	 */
 	public static ArrayList<Double> obvMAScores(TechnicalData data, int start, int end, int period, int perMult) {
 
-		ArrayList<Double> obvMA = obvMA(data, start-(period*perMult), end, period);
-		return normalize(obvMA, start, period*perMult);
+		return scores(data.closes(), data.volumes(), start, end, new int[] {period}, perMult, false, true).get(0);
 		
 	}
 	
 	
+	/**
+	 * Calculate obv and obvMA scores of every period from one shared array of volume x price
+	 * change.  Each score is the value re-scaled over the highest and lowest values of the last
+	 * period*perMult periods, found with a sliding max and min, so each list is O(n).
+	 * @param data Technical data set to create analysis for
+	 * @param start First index to create scores for
+	 * @param end Last index to create scores for
+	 * @param periods Periods to calculate on balance volume moving averages over
+	 * @param perMult Period multiplier
+	 * @return obv scores of each period followed by obvMA scores of each period
+	 */
+	public static ArrayList<ArrayList<Double>> onBalanceVolumeScores(TechnicalData data, int start, int end, int[] periods, int perMult) {
+
+		return scores(data.closes(), data.volumes(), start, end, periods, perMult, true, true);
+	}
+
+
+	/**
+	 * onBalanceVolumeScores over a validated window (closes and volumes are read straight from the
+	 * window's columns)
+	 * @param window Data window with at least lookback(period, perMult) periods before start for every period
+	 * @param periods Periods to calculate on balance volume moving averages over
+	 * @param perMult Period multiplier
+	 * @return obv scores of each period followed by obvMA scores of each period
+	 */
+	public static ArrayList<ArrayList<Double>> onBalanceVolumeScores(DataWindow window, int[] periods, int perMult) {
+
+		for (int period : periods) window.require(lookback(period, perMult));
+		return scores(window.closes(), window.volumes(), window.start(), window.end(), periods, perMult, true, true);
+	}
+
+
+	/**
+	 * Calculate only the requested obv and / or obvMA score lists (see onBalanceVolumeScores)
+	 * @param obvLists True = include obv scores
+	 * @param maLists True = include obvMA scores
+	 * @return obv scores of each period (if requested) followed by obvMA scores of each period (if requested)
+	 */
+	private static ArrayList<ArrayList<Double>> scores(double[] close, long[] volume, int start, int end, int[] periods, int perMult,
+			boolean obvLists, boolean maLists) {
+
+		ArrayList<ArrayList<Double>> lists = new ArrayList<ArrayList<Double>>();
+		int count = (obvLists ? periods.length : 0) + (maLists ? periods.length : 0);
+
+		if (end < start) {
+			for (int p = 0; p < count; p++) lists.add(new ArrayList<Double>());
+			return lists;
+		}
+
+		int first = start;									// Index of first volume x delta read
+		for (int period : periods)
+			first = Math.min(first, start - period*perMult - (maLists ? period - 1 : 0));
+
+		double[] obv = volumeDeltas(close, volume, first, end);
+
+		if (obvLists) {
+			for (int period : periods) {
+				int from = start - period*perMult;			// First value read by range of start
+				double[] values = Arrays.copyOfRange(obv, from - first, end - first + 1);
+				lists.add(normalize(values, period*perMult));
+			}
+		}
+
+		if (maLists) {
+			for (int period : periods) {
+				int from = start - period*perMult;
+				double[] values = movingAverages(obv, from - first, end - first, period);
+				lists.add(normalize(values, period*perMult));
+			}
+		}
+
+		return lists;
+	}
+	
+	
 	////////////////////////////////////////////////////////////////////////////////////////////////
 	// Primary Indicator Calculation Methods
 	////////////////////////////////////////////////////////////////////////////////////////////////
@@ -80,22 +156,7 @@ public class OBV {
 	 */
 	public static ArrayList<Double> obv(TechnicalData data, int start, int end) {
 
-		double delta = 0.0;								// Price change (today's close - yesterday's)
-		double obv = 0.0;								// Store current on balance volume value
-		ArrayList<Double> list = new ArrayList<Double>();	
-
-		for (int i = start; i <= end; i++) {
-
-			// Calculate values
-			delta = data.close(i) - data.close(i-1);
-			obv = (data.volume(i) * delta);
-
-			// Add to list
-			list.add(obv);					
-
-		}
-
-		return list;
+		return toList(volumeDeltas(data.closes(), data.volumes(), start, end));
 	}
 
 	
@@ -106,31 +167,59 @@ public class OBV {
 	 * @param start Index in TechnicalData to begin calculating OBV for
 	 * @param end Last index in TechnicalData to calculate OBV for
 	 * @param period Period to take OBV MA for
-	 * @param d Determine if modify OBV by price change for weighting (T = Yes, F = No)
 	 * @return List of OBV values in order latest -> newest
 	 */
 	public static ArrayList<Double> obvMA(TechnicalData data, int start, int end, int period) {
 
-		double delta = 1.0; 	// Differences in close prices
-		double obvMA = 0.0;		// Running sum of closes for moving average
+		double[] obv = volumeDeltas(data.closes(), data.volumes(), start - period + 1, end);
+		return toList(movingAverages(obv, period - 1, obv.length - 1, period));
+	}
 
-		ArrayList<Double> list = new ArrayList<Double>();
 
-		for (int i = start; i <= end; i++) {
+	/**
+	 * Volume x price change of each period.  Price change of the first value in the data set is
+	 * taken as 1 (there is no earlier close).
+	 * @param close Closes of data that is being analyzed
+	 * @param volume Volumes of data that is being analyzed
+	 * @param start First index to calculate for
+	 * @param end Last index to calculate for
+	 * @return Array where [i] is the value of index start + i
+	 */
+	private static double[] volumeDeltas(double[] close, long[] volume, int start, int end) {
 
-			obvMA = 0.0;	// Reset variable
+		double[] obv = new double[Math.max(0, end - start + 1)];
 
-			for (int j = i - period + 1; j <= i; j++) {
+		for (int j = start; j <= end; j++) {
+			double delta = j != 0 ? close[j] - close[j-1] : 1;
+			obv[j - start] = (int) volume[j] * delta;			// Same int volume as TechnicalData.volume
+		}
 
-				// If statement added to make delta = 1 for first value in data set
-				if (j != 0) delta = data.close(j) - data.close(j-1);
-				else delta = 1;
+		return obv;
+	}
 
-				obvMA += data.volume(j) * delta;
-			}
-			list.add(obvMA/period);
+
+	/**
+	 * Moving average of obv values with a rolling sum
+	 * @param obv Volume x price change values
+	 * @param from Position in obv of first average (needs period - 1 values before it)
+	 * @param to Position in obv of last average
+	 * @param period Number of values averaged
+	 * @return Array where [i] is the average ending at position from + i
+	 */
+	private static double[] movingAverages(double[] obv, int from, int to, int period) {
+
+		double[] averages = new double[Math.max(0, to - from + 1)];
+		RollingSum sum = new RollingSum();
+
+		for (int j = from - period + 1; j < from; j++) sum.add(obv[j]);
+
+		for (int i = from; i <= to; i++) {
+			sum.add(obv[i]);
+			averages[i - from] = sum.sum() / period;
+			sum.subtract(obv[i - period + 1]);
 		}
-		return list;
+
+		return averages;
 	}
 	
 	
@@ -140,22 +229,27 @@ public class OBV {
 	
 	
 	/**
-	 * @param obv On balance volume or on balance volume moving average list
-	 * @param start Index in TechnicalData data set to start analysis (used in range offset)
-	 * @param rangePeriod Index offset to calculate 
-	 * @return List of obv values that were converted to [0,1] range
+	 * @param obv On balance volume or on balance volume moving average values
+	 * @param rangePeriod Number of values before each score that its range is taken over
+	 * @return List of obv values (after the first rangePeriod) that were converted to [0,1] range
 	 */
-	public static ArrayList<Double> normalize(ArrayList<Double> obv, int start, int rangePeriod) {
+	public static ArrayList<Double> normalize(double[] obv, int rangePeriod) {
 		
-		ArrayList<Double> list = new ArrayList<Double>();
-		ArrayList<Double[]> ranges = getRanges(obv, start, rangePeriod);
+		ArrayList<Double> list = new ArrayList<Double>(Math.max(0, obv.length - rangePeriod));
+		SlidingExtreme max = new SlidingExtreme(rangePeriod, true);
+		SlidingExtreme min = new SlidingExtreme(rangePeriod, false);
 		
-		for (int i = 0; i < ranges.size(); i++) {
-			list.add(
-					Model.round(
-							rescale(obv.get(i+rangePeriod), ranges.get(i))
-					,6)
-					);
+		for (int i = 0; i < obv.length; i++) {
+
+			max.push(i, obv[i]);
+			min.push(i, obv[i]);
+
+			if (i < rangePeriod) continue;
+
+			max.evictBefore(i - rangePeriod + 1);
+			min.evictBefore(i - rangePeriod + 1);
+
+			list.add(Model.round(rescale(obv[i], max.get(), min.get()), 6));
 		}
 		
 		return list;
@@ -163,49 +257,44 @@ public class OBV {
 	
 	
 	/**
-	 * Convert close and moving average values to [0, 1] range
-	 * @param close Close value at index
-	 * @param movAvg Moving Average value at index (mean)
-	 * @param range Highest and lowest normalized values previously calculated
+	 * Convert obv value to [0, 1] range
+	 * @param x On balance volume value at index
+	 * @param max Highest value in range
+	 * @param min Lowest value in range
 	 * @return Converted value to [0,1] range
 	 */
-	public static double rescale(double x, Double[] range) {
+	public static double rescale(double x, double max, double min) {
 
-		return (-1) * (x - range[1]) / (range[0] - range[1]) + 1;
+		return (-1) * (x - min) / (max - min) + 1;
 
 	}
+
+
+	/** @return Values as list */
+	private static ArrayList<Double> toList(double[] values) {
+
+		ArrayList<Double> list = new ArrayList<Double>(values.length);
+		for (double value : values) list.add(value);
+		return list;
+	}
 	
 	
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Lookback
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
 	/**
-	 * Helper method that creates a list of max and min ranges for the obv score inputs
-	 * @param obv On balance volume 
-	 * @param start
-	 * @param rangePeriod
-	 * @return
+	 * Number of periods before start that obvScores and obvMAScores read
+	 * @param period On balance volume moving average period
+	 * @param perMult Period multiplier
+	 * @return Required lookback
 	 */
-	public static ArrayList<Double[]> getRanges(ArrayList<Double> obv, int start, int rangePeriod) {
-		
-		double max, min;
-		ArrayList<Double[]> ranges = new ArrayList<Double[]>();
-		
-		for (int i = rangePeriod; i < obv.size(); i++) {
-			
-			// Reset variables
-			max = obv.get(i);
-			min = obv.get(i);
-			
-			for (int j = i - rangePeriod + 1; j <= i; j++) {
-				if (obv.get(j) > max) max = obv.get(j);
-				if (obv.get(j) < min) min = obv.get(j);
-			}
-			
-			Double[] range = {max, min};
-			ranges.add(range);
-		}
-		return ranges;
+	public static int lookback(int period, int perMult) {
+		return period * perMult + period;
 	}
-	
-	
+
+
 	////////////////////////////////////////////////////////////////////////////////////////////////
 	// Testing
 	////////////////////////////////////////////////////////////////////////////////////////////////
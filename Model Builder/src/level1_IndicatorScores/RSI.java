@@ -2,6 +2,7 @@ package level1_IndicatorScores;
 
 import java.util.ArrayList;
 
+import level0_TechnicalData.DataWindow;
 import level0_TechnicalData.TechnicalData;
 import model.Model;
 
@@ -21,38 +22,7 @@ public class RSI {
 	 * @return List of RSI values for data set
 	 */
 	public static ArrayList<Double> relativeStrengthIndex(TechnicalData data, int start, int end, int period) {
-
-		double rs;				// Relative strength
-		double rsiValue;		// Relative strength index value
-		double delta;			// Difference between last close and current one
-		double up   = 0.0;		// Used to track average of days where close > open
-		double down = 0.0;      // Used to track average of days where close < open		
-	
-		
-		ArrayList<Double> list = new ArrayList<Double>();
-
-		for (int i = start; i <= end; i++) {
-			
-			for (int j = i - period + 1; j <= i; j++) {
-
-				delta = data.close(j) - data.close(j-1);
-				
-				if (delta > 0) up += delta;
-				else down -= delta;
-			}
-
-			rs = up / down;
-			rsiValue = (100.0 - (100.0 / (1 + rs))) / 100.0;
-			
-			list.add(Model.round(rsiValue,6));
-
-			// Reset variables
-			up = 0.0;
-			down = 0.0;
-		}
-		
-		
-		return list;
+		return relativeStrengthIndexes(data, start, end, period).get(0);
 	}
 
 
@@ -65,36 +35,110 @@ public class RSI {
 	 */
 	public static ArrayList<Double> relativeStrengthIndex(TechnicalData data, int start, int end, int period, int cf) {
 
-		double rs;				// Relative strength
-		double rsiValue;		// Relative strength index value
-		double delta;			// Difference between last close and current one
-		double up   = 0.0;		// Used to track average of days where close > open
-		double down = 0.0;      // Used to track average of days where close < open		
-	
 		TechnicalData data2 = TechnicalData.modifyTechnicalData(data, cf);
-		ArrayList<Double> list = new ArrayList<Double>();
+		return relativeStrengthIndexes(data2, start, end, period).get(0);
+	}
+
+
+	/**
+	 * RSI of several periods in one pass over the close deltas.  Each period keeps rolling sums of
+	 * its up and down deltas, so every value takes O(1) time whatever the period.
+	 * @param data Data set to get RSI values for
+	 * @param start First index to calculate RSI for
+	 * @param end Last index to calculate RSI for
+	 * @param periods Number of periods to calculate RSI for (one list per period)
+	 * @return List of RSI values of each period (same values as relativeStrengthIndex)
+	 */
+	public static ArrayList<ArrayList<Double>> relativeStrengthIndexes(TechnicalData data, int start, int end, int... periods) {
+		return relativeStrengthIndexes(data.closes(), start, end, periods);
+	}
 
-		for (int i = start; i <= end; i++) {
-			
-			for (int j = i - period + 1; j <= i; j++) {
 
-				delta = data2.close(j) - data2.close(j-1);
-				
-				if (delta > 0) up += delta;
-				else down -= delta;
+	/**
+	 * relativeStrengthIndexes over a validated window (closes are read straight from the window's
+	 * column)
+	 * @param window Data window with at least lookback(period, 1) periods before start for every period
+	 * @param periods Number of periods to calculate RSI for (one list per period)
+	 * @return List of RSI values of each period
+	 */
+	public static ArrayList<ArrayList<Double>> relativeStrengthIndexes(DataWindow window, int... periods) {
+
+		for (int period : periods) window.require(lookback(period, 1));
+		return relativeStrengthIndexes(window.closes(), window.start(), window.end(), periods);
+	}
+
+
+	/** relativeStrengthIndexes of closes start -> end */
+	private static ArrayList<ArrayList<Double>> relativeStrengthIndexes(double[] close, int start, int end, int[] periods) {
+
+		ArrayList<ArrayList<Double>> lists = new ArrayList<ArrayList<Double>>();
+		for (int p = 0; p < periods.length; p++) lists.add(new ArrayList<Double>());
+
+		if (end < start || periods.length == 0) return lists;
+
+
+		// 1. Deltas shared by every period ////////////////////////////////////////////////////////
+
+
+		int longest = 0;
+		for (int period : periods) longest = Math.max(longest, period);
+
+		int first = start - longest + 1;				// Index of first delta read
+		double[] delta = new double[end - first + 1];	// Difference between last close and current one
+
+		for (int j = first; j <= end; j++) delta[j - first] = close[j] - close[j-1];
+
+
+		// 2. Rolling up and down sums of each period //////////////////////////////////////////////
+
+
+		RollingSum[] up = new RollingSum[periods.length];		// Sum of deltas where close rose
+		RollingSum[] down = new RollingSum[periods.length];		// Sum of deltas where close fell (positive)
+		int[] ups = new int[periods.length];					// Deltas in up sum (sum is exactly 0 when none)
+		int[] downs = new int[periods.length];					// Deltas in down sum
+
+		for (int p = 0; p < periods.length; p++) {
+
+			up[p] = new RollingSum();
+			down[p] = new RollingSum();
+
+			for (int j = start - periods[p] + 1; j < start; j++) {
+				double d = delta[j - first];
+				if (d > 0) { up[p].add(d); ups[p]++; }
+				else if (d < 0) { down[p].subtract(d); downs[p]++; }
 			}
+		}
+
+
+		// 3. Slide every window one period at a time //////////////////////////////////////////////
+
 
-			rs = up / down;
-			rsiValue = (100.0 - (100.0 / (1 + rs)))/100.0;
-			
-			list.add(Model.round(rsiValue,6));
+		for (int i = start; i <= end; i++) {
+
+			double in = delta[i - first];
+
+			for (int p = 0; p < periods.length; p++) {
+
+				// Delta entering window
+				if (in > 0) { up[p].add(in); ups[p]++; }
+				else if (in < 0) { down[p].subtract(in); downs[p]++; }
+
+				double upSum = ups[p] == 0 ? 0.0 : up[p].sum();
+				double downSum = downs[p] == 0 ? 0.0 : down[p].sum();
+
+				double rs = upSum / downSum;
+				double rsiValue = (100.0 - (100.0 / (1 + rs))) / 100.0;
+
+				lists.get(p).add(Model.round(rsiValue,6));
 
-			// Reset variables
-			up = 0.0;
-			down = 0.0;
+				// Delta leaving window before next period
+				double out = delta[i - periods[p] + 1 - first];
+				if (out > 0) { up[p].subtract(out); ups[p]--; }
+				else if (out < 0) { down[p].add(out); downs[p]--; }
+			}
 		}
-		
-		return list;
+
+		return lists;
 	}
 	
 
@@ -109,24 +153,106 @@ public class RSI {
 	 */
 	public static ArrayList<Double> rsiMA(TechnicalData data, int start, int end, int period, int cf, int rsiMAPeriod) {
 
-		double rsiMA;
 		ArrayList<Double> rsi = relativeStrengthIndex(data, start-rsiMAPeriod, end, rsiMAPeriod, cf);
 		ArrayList<Double> list = new ArrayList<Double>();
+
+		double[] values = new double[rsi.size()];
+		long[] millionths = new long[values.length];		// RSI values are cut to 6 decimals
+
+		for (int i = 0; i < values.length; i++) {
+			values[i] = rsi.get(i);
+			millionths[i] = Math.round(values[i] * 1e6);
+		}
 		
-		// Calculate moving averages of rsi values
-		for (int i = rsiMAPeriod; i < rsi.size(); i++) {
-			
-			rsiMA = 0.0;
-			
-			for (int j = i - rsiMAPeriod+1; j <= i; j++) rsiMA += rsi.get(j);
-			
-			list.add(Model.round(rsiMA/rsiMAPeriod,6));
+		// Calculate moving averages of rsi values from a rolling sum of millionths, which is exact.
+		// An average that is not a whole number of millionths is at least 1/rsiMAPeriod of one
+		// from a 6 decimal step, far more than the rounding error of adding the values in order,
+		// so it cuts to sum / rsiMAPeriod.  Averages that land exactly on a step are summed in
+		// order (not rolled) to cut the same way they always have.
+		long sum = 0;
+		for (int j = 1; j < rsiMAPeriod && j < values.length; j++) sum += millionths[j];
+
+		for (int i = rsiMAPeriod; i < values.length; i++) {
+
+			sum += millionths[i];
+
+			if (sum % rsiMAPeriod != 0) {
+				list.add((sum / rsiMAPeriod) / 1e6);
+			} else {
+				double rsiMA = 0.0;
+				for (int j = i - rsiMAPeriod+1; j <= i; j++) rsiMA += values[j];
+				list.add(Model.round(rsiMA/rsiMAPeriod,6));
+			}
+
+			sum -= millionths[i - rsiMAPeriod + 1];
 		}
 
 		return list;
 	}
+
+
+	/**
+	 * rsiMA of several (period, cf) pairs.  rsiMA takes RSI over rsiMAPeriod (period is not used),
+	 * so pairs with the same cf share one list and each cf is calculated once.  Compressed periods
+	 * are read from the data's compressed views, so the window is only used for its range.
+	 * @param window Data window with at least rsiMALookback(cf, rsiMAPeriod) periods before start for every cf
+	 * @param periods Number of days of each pair
+	 * @param cfs Compression factor of each pair
+	 * @param rsiMAPeriod Calculate the moving average of RSI values
+	 * @return List of rsiMA values of each pair
+	 */
+	public static ArrayList<ArrayList<Double>> rsiMAs(DataWindow window, int[] periods, int[] cfs, int rsiMAPeriod) {
+
+		for (int cf : cfs) window.require(rsiMALookback(cf, rsiMAPeriod));
+		return rsiMAs(window.data(), window.start(), window.end(), periods, cfs, rsiMAPeriod);
+	}
+
+
+	/** rsiMAs of start -> end (see above) */
+	private static ArrayList<ArrayList<Double>> rsiMAs(TechnicalData data, int start, int end, int[] periods, int[] cfs, int rsiMAPeriod) {
+
+		ArrayList<ArrayList<Double>> lists = new ArrayList<ArrayList<Double>>();
+
+		for (int p = 0; p < periods.length; p++) {
+
+			ArrayList<Double> list = null;
+			for (int q = 0; q < p && list == null; q++) if (cfs[q] == cfs[p]) list = lists.get(q);
+
+			lists.add(list != null ? list : rsiMA(data, start, end, periods[p], cfs[p], rsiMAPeriod));
+		}
+
+		return lists;
+	}
 	
 	
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Lookback
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	/**
+	 * Number of periods before start that relativeStrengthIndex reads (compressed periods
+	 * need cf - 1 more periods to be fully combined)
+	 * @param period Relative strength period
+	 * @param cf Compression factor (1 = none)
+	 * @return Required lookback
+	 */
+	public static int lookback(int period, int cf) {
+		return period + Math.max(cf, 1) - 1;
+	}
+
+
+	/**
+	 * Number of periods before start that rsiMA reads
+	 * @param cf Compression factor (1 = none)
+	 * @param rsiMAPeriod Moving average period of RSI values
+	 * @return Required lookback
+	 */
+	public static int rsiMALookback(int cf, int rsiMAPeriod) {
+		return rsiMAPeriod + lookback(rsiMAPeriod, cf);
+	}
+
+
 	////////////////////////////////////////////////////////////////////////////////////////////////
 	// Testing
 	////////////////////////////////////////////////////////////////////////////////////////////////
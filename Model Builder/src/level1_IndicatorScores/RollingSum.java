@@ -0,0 +1,46 @@
+package level1_IndicatorScores;
+
+/**
+ * Sum of a sliding window of values, updated in O(1) as values enter and leave the window.
+ * The sum is kept as an unevaluated pair of doubles (high and low parts), so rounding errors do
+ * not build up over millions of updates and sum() stays as accurate as adding the window's
+ * values again from scratch.
+ *
+ * @author Ryan Bell
+ */
+public final class RollingSum {
+
+
+	private double mHigh;		// Leading part of sum
+	private double mLow;		// Rounding error of mHigh
+
+
+	/** Add value entering window */
+	public void add(double value) {
+
+		double sum = mHigh + value;
+		double error = Math.abs(mHigh) >= Math.abs(value) ? (mHigh - sum) + value : (value - sum) + mHigh;
+
+		mHigh = sum;
+		mLow += error;
+	}
+
+
+	/** Remove value leaving window */
+	public void subtract(double value) {
+		add(-value);
+	}
+
+
+	/** @return Sum of values in window */
+	public double sum() {
+		return mHigh + mLow;
+	}
+
+
+	/** Empty window */
+	public void clear() {
+		mHigh = 0.0;
+		mLow = 0.0;
+	}
+}
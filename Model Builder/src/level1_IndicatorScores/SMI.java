@@ -2,6 +2,8 @@ package level1_IndicatorScores;
 
 import java.util.ArrayList;
 
+import level0_TechnicalData.DataWindow;
+import level0_TechnicalData.SlidingExtreme;
 import level0_TechnicalData.TechnicalData;
 import model.Model;
 import model.Variables;
@@ -28,139 +30,132 @@ public class SMI {
 	 * @return List of ratio values
 	 */
 	public static ArrayList<Double> stochasticMomentumIndex(TechnicalData data, int start, int end, int period) {
-
-		ArrayList<Double[]> list0 = initialRatios(data, start, end, period);	// 0 = numerator; 1 = denominator
-		ArrayList<Double[]> list1 = firstEMA(list0, start, period);				// 0 = numerator; 1 = denominator
-		return secondEMA(list1, period);
-
+		return stochasticMomentumIndex(data.highs(), data.lows(), data.closes(), start, end, period);
 	}
 
 
-	////////////////////////////////////////////////////////////////////////////////////////////////
-	// Helper Methods for Class
-	////////////////////////////////////////////////////////////////////////////////////////////////
-
-
 	/**
-	 * Calculate (close - low) / (high - low) list w/ period*2 offset
-	 * @param data Data set to calculate ratio for
-	 * @param start First index in data set to calculate for
-	 * @param end Last index in data set to calculate for
-	 * @param maPeriod Exponential moving average period
-	 * @return 2D Array of {(close-low), (high-low)}
+	 * stochasticMomentumIndex over a validated window (highs, lows and closes are read straight
+	 * from the window's columns)
+	 * @param window Data window with at least lookback(period) periods before start
+	 * @param period EMA period length (1 day = Indicators.PIM)
+	 * @return List of ratio values
 	 */
-	public static ArrayList<Double[]> initialRatios(TechnicalData data, int start, int end, int period) {
-
-
-		// 1. Get initial numerator and denominator values
-		boolean HLSet = false;						// Ensures variable reset
+	public static ArrayList<Double> stochasticMomentumIndex(DataWindow window, int period) {
+		window.require(lookback(period));
+		return stochasticMomentumIndex(window.highs(), window.lows(), window.closes(), window.start(), window.end(), period);
+	}
 
-		int start0 = start - (period*2) + 1;
 
-		double high = data.high(start0); 
-		double low = data.low(start0);
+	/** stochasticMomentumIndex of columns start -> end */
+	private static ArrayList<Double> stochasticMomentumIndex(double[] highs, double[] lows, double[] closes,
+			int start, int end, int period) {
 
-		ArrayList<Double[]> list = new ArrayList<Double[]>();
+		ArrayList<Double> list = new ArrayList<Double>(Math.max(0, end - start + 1));
+		if (end < start) return list;
 
 
-		// 2. Calculate all numerator (close - low) and denominator (high - low)
-		for (int i = start0; i <= end; i++) {
+		// 1. Values before first ratio ////////////////////////////////////////////////////////////
 
-			for (int j = i-period+1; j <= i; j++) {
 
-				if (HLSet) {
-					if (data.high(j) > high) high = data.high(j);
-					if (data.low(j) < low) low = data.low(j);
-				} else {
-					HLSet = true;
-					high = data.high(j);
-					low = data.low(j);
-				}
-			}
+		int start0 = start - (period*2) + 1;			// Index of first (close-low) / (high-low) ratio
+		double k = 2.0 / (period + 1.0);				// Smoothing Factor
 
-			Double[] node = {(data.close(i)-low), (high - low)};
-			list.add(node);
-			HLSet = false;
+		SlidingExtreme high = new SlidingExtreme(period, true);		// Highest high over period
+		SlidingExtreme low = new SlidingExtreme(period, false);		// Lowest low over period
 
+		for (int j = start0 - period + 1; j < start0; j++) {
+			high.push(j, highs[j]);
+			low.push(j, lows[j]);
 		}
-		return list;
-	}
 
+		double emaTop = 0.0, emaBottom = 0.0;			// First EMA of (close-low) and (high-low)
+		double emaTop2 = 0.0, emaBottom2 = 0.0;			// Second EMA (EMA of first EMA)
 
-	/** Calculate first exponential moving average of (close-low)/(high-low) */
-	public static ArrayList<Double[]> firstEMA(ArrayList<Double[]> list0, int start, int period) {
 
+		// 2. Ratio and both EMAs in one pass //////////////////////////////////////////////////////
 
-		double emaTop = 0.0;
-		double emaBottom = 0.0;
-		double k = 2.0 / (period + 1.0);	// Smoothing Factor
 
-		int start1 = period;
-		ArrayList<Double[]> list = new ArrayList<Double[]>();
+		for (int i = start0; i <= end; i++) {
 
-		// Calculate initial EMA sums
-		for (int i = 0; i < period-1; i++) {
-			emaTop += list0.get(i)[0];
-			emaBottom += list0.get(i)[1];
-		}
+			high.push(i, highs[i]);
+			low.push(i, lows[i]);
+			high.evictBefore(i - period + 1);
+			low.evictBefore(i - period + 1);
 
-		emaTop = emaTop / period;
-		emaBottom = emaBottom / period;
-		
-		for (int i = start1; i < list0.size(); i++) {
+			double top = closes[i] - low.get();			// Numerator (close - low)
+			double bottom = high.get() - low.get();			// Denominator (high - low)
 
-			// Calculate EMA values
-			emaTop = ema(list0.get(i)[0], k, emaTop);
-			emaBottom = ema(list0.get(i)[1], k, emaBottom);
+			// First EMA: seeded with the sum of the first period-1 ratios over period, and the
+			// period'th ratio is skipped
+			int m = i - start0;
 
-			// Add to list
-			Double[] node = {emaTop, emaBottom};
-			list.add(node);
-		}
-		
-		return list;
-	}
+			if (m < period - 1) {
+				emaTop += top;
+				emaBottom += bottom;
+				continue;
+			}
 
+			if (m == period - 1) {
+				emaTop = emaTop / period;
+				emaBottom = emaBottom / period;
+				continue;
+			}
 
-	/** Calculate second exponential moving average of (close-low)/(high-low) */
-	public static ArrayList<Double> secondEMA(ArrayList<Double[]> emaList, int period) {
+			emaTop = ema(top, k, emaTop);
+			emaBottom = ema(bottom, k, emaBottom);
 
-		double emaTop = 0.0;
-		double emaBottom = 0.0;
-		double k = 2.0 / (period + 1.0);	// Smoothing Factor
-		
-		int start2 = period-1;
-		ArrayList<Double> list = new ArrayList<Double>();
+			// Second EMA: seeded the same way from the first period-1 first EMA values, and
+			// updated from the period'th value on
+			int q = m - period;
 
-		// Calculate initial sum values
-		for (int i = 0; i < period-1; i++) {
-			emaTop += emaList.get(i)[0];
-			emaBottom += emaList.get(i)[1];
-		}
+			if (q < period - 1) {
+				emaTop2 += emaTop;
+				emaBottom2 += emaBottom;
+				continue;
+			}
 
-		emaTop = emaTop / period;
-		emaBottom = emaBottom / period;
+			if (q == period - 1) {
+				emaTop2 = emaTop2 / period;
+				emaBottom2 = emaBottom2 / period;
+			}
 
-		for (int i = start2; i < emaList.size(); i++) {
-			
-			// Calculate EMA values
-			emaTop = ema(emaList.get(i)[0], k, emaTop);
-			emaBottom = ema(emaList.get(i)[1], k, emaBottom);
-			
-			list.add(Model.round(emaTop / emaBottom, 6));
-		}
+			emaTop2 = ema(emaTop, k, emaTop2);
+			emaBottom2 = ema(emaBottom, k, emaBottom2);
 
+			list.add(Model.round(emaTop2 / emaBottom2, 6));
+		}
 
 		return list;
 	}
 
 
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Helper Methods for Class
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
 	/** Calculated exponential moving average of inputed data */
 	public static double ema(double close, double k, double lastEMA) {
 		return (close * k) + (lastEMA * (1 - k));
 	}
 
 
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Lookback
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	/**
+	 * Number of periods before start that stochasticMomentumIndex reads
+	 * @param period Stochastic momentum period
+	 * @return Required lookback
+	 */
+	public static int lookback(int period) {
+		return 3 * period - 2;
+	}
+
+
 	////////////////////////////////////////////////////////////////////////////////////////////////
 	// Testing
 	////////////////////////////////////////////////////////////////////////////////////////////////
@@ -38,7 +38,6 @@ public class Trend {
 		// Create lists
 		ArrayList<Double> dydx = derivative(data2, start, end, type);				// First derivative estimations of technical data
 		ArrayList<Integer> criticalPoints = criticalPoints(dydx, type);				// dydx indexes that are peaks or troughs
-		ArrayList<Double> priceAction = priceAction(data2, start, end, period);		// Close OR moving average prices of technical data
 		ArrayList<Double> trendSlopes = new ArrayList<Double>();					// List to return (Slope, Length)
 
 		// Create variables
@@ -52,7 +51,7 @@ public class Trend {
 
 			curr = criticalPoints.get(i);							// Current index in dydx to start slope calculation
 			next = criticalPoints.get(i+1); 						// Index in dydx to re-calculate slope
-			slope = getSlope(priceAction, curr, next);				// Slope from current index to next index in data
+			slope = getSlope(data2, start + curr, start + next, period);	// Slope from current index to next index in data
 
 			// Reset and calculate length of slope line
 			length = next - curr;
@@ -172,6 +171,23 @@ public class Trend {
 	}
 
 
+	/**
+	 * Slope between critical points of close or moving average prices (see priceAction).  Only the
+	 * two prices are calculated, each moving average added from scratch so slopes truncated to 6
+	 * decimals do not depend on a rolling sum.
+	 * @param data Technical data (compressed)
+	 * @param curr Index in data of current critical point
+	 * @param next Index in data of next critical point
+	 * @param period Moving average length (1 or less = close prices)
+	 * @return Slope between critical points
+	 */
+	private static double getSlope(TechnicalData data, int curr, int next, int period) {
+
+		if (period <= 1) return (Model.round(data.close(next), 6) - Model.round(data.close(curr), 6)) / Variables.NP;
+		return (MA.movingAverage(data, next, period) - MA.movingAverage(data, curr, period)) / Variables.NP;
+	}
+
+
 	/**
 	 * @param priceAction Price values from technical data in desired index range
 	 * @param curr Current index critical point
@@ -183,6 +199,26 @@ public class Trend {
 	}
 
 
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Lookback
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	/**
+	 * Number of periods before start that trendLines (and derivative, with period = cf = 1) reads.
+	 * The derivative reads the compressed period before start and the moving average reads
+	 * period - 1 compressed periods before start, and each compressed period combines the cf - 1
+	 * periods before it.
+	 * @param period Moving average period
+	 * @param cf Compression factor (1 = none)
+	 * @return Required lookback
+	 */
+	public static int lookback(int period, int cf) {
+		int c = Math.max(cf, 1);
+		return Math.max(c, period + c - 2);
+	}
+
+
 	////////////////////////////////////////////////////////////////////////////////////////////////
 	// Testing
 	////////////////////////////////////////////////////////////////////////////////////////////////
@@ -2,6 +2,7 @@ package level1_IndicatorScores;
 
 import java.util.ArrayList;
 
+import level0_TechnicalData.DataWindow;
 import level0_TechnicalData.TechnicalData;
 import model.Model;
 
@@ -14,25 +15,66 @@ public class VS {
 	 * volStrength = volume / volumeMA
 	 * 
 	 * @param data Data set to calculate volume strength list for
-	 * @param period Period to look back for moving average comparison
 	 * @param start Start index to begin calculating volume strength for
 	 * @param end Last index to begin calculating volume strength for
 	 * @param period Number of 5 minute periods to calculate moving average for
-	 * @param periodMult Multiplication factor that determines how many periods max & min is calculated for
+	 * @param periodMult Multiplication factor of max & min period (not used, the ratio is not normalized)
 	 * @return List of volume to volume moving average values
 	 */
 	public static ArrayList<Double> volStrength(TechnicalData data, int start, int end, int period, int periodMult) {
 		
+		return volStrengths(data, start, end, period).get(0);
+	}
+
+
+	/**
+	 * Calculate volume strength of every period from one array of volume prefix sums, so each
+	 * volume moving average is one subtraction.  Volumes are whole numbers, so the sums are kept
+	 * as longs and are exact.
+	 * 
+	 * @param data Data set to calculate volume strength lists for
+	 * @param start Start index to begin calculating volume strength for
+	 * @param end Last index to begin calculating volume strength for
+	 * @param periods Numbers of 5 minute periods to calculate moving averages for
+	 * @return List of volume to volume moving average values for each period
+	 */
+	public static ArrayList<ArrayList<Double>> volStrengths(TechnicalData data, int start, int end, int... periods) {
+		return volStrengths(data.volumes(), start, end, periods);
+	}
+
+
+	/**
+	 * volStrengths over a validated window (volumes are read straight from the window's column)
+	 * @param window Data window with at least lookback(period, 0) periods before start for every period
+	 * @param periods Numbers of 5 minute periods to calculate moving averages for
+	 * @return List of volume to volume moving average values for each period
+	 */
+	public static ArrayList<ArrayList<Double>> volStrengths(DataWindow window, int... periods) {
+
+		for (int period : periods) window.require(lookback(period, 0));
+		return volStrengths(window.volumes(), window.start(), window.end(), periods);
+	}
+
+
+	/** volStrengths of volumes start -> end (volumes are cut to ints as TechnicalData.volume does) */
+	private static ArrayList<ArrayList<Double>> volStrengths(long[] volumes, int start, int end, int[] periods) {
+		
 		
 		// 1. Create variables /////////////////////////////////////////////////////////////////////
 		
 		
-		double volume = 0.0;		// Daily volume
-		double volMA  = 0.0;		// Volume moving average 
-		double nVal   = 0.0; 		// Normalization between volume and volume moving average
-		double max	  = 0.0;		// Maximum value in data set for normalization
-		double min    = 0.0;		// Minimum value in data set for normalization
-		ArrayList<Double> list = new ArrayList<Double>();
+		ArrayList<ArrayList<Double>> lists = new ArrayList<ArrayList<Double>>();
+		for (int p = 0; p < periods.length; p++) lists.add(new ArrayList<Double>(Math.max(0, end - start + 1)));
+
+		if (end < start || periods.length == 0) return lists;
+
+		int longest = 0;
+		for (int period : periods) longest = Math.max(longest, period);
+
+		int first = start - longest + 1;			// Index of first volume read
+		long[] sum = new long[end - first + 2];		// [k] = sum of first k volumes from first
+
+		for (int j = first; j <= end; j++) sum[j - first + 1] = sum[j - first] + (int) volumes[j];
 		
 		
 		// 2. Calculate volume strength by comparing it to a moving average of the volume ////////// 
@@ -40,30 +82,17 @@ public class VS {
 		
 		for (int i = start; i <= end; i++) {
 			
-			// a. Reset variables
-			volMA = 0.0;
-			volume = data.volume(i);
-			max = volume;
-			min = volume;
-			
-			// b. Calculate volume moving average
-			volMA = volumeMA(data, i, period);
-			
-			// c. Calculate max and min volume values over MA period x 
-			for (int j = i - (period * periodMult) + 1; j <= i; j++) {
-				if (data.volume(j) > max) max = data.volume(j);
-				if (data.volume(j) < min) min = data.volume(j);
+			double volume = (int) volumes[i];		// Daily volume
+			int to = i - first + 1;
+
+			for (int p = 0; p < periods.length; p++) {
+
+				double volMA = (double) (sum[to] - sum[to - periods[p]]) / periods[p];	// Volume moving average
+				lists.get(p).add(Model.round(volume/volMA, 6));
 			}
-			
-			// d. Compare volume to volume moving average
-			nVal = volume/volMA;
-			
-			// e. Add comparison to list
-			list.add(Model.round(nVal,6));
-			
 		}
 		
-		return list;
+		return lists;
 	}
 	
 	
@@ -84,6 +113,22 @@ public class VS {
 	}
 	
 	
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Lookback
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	/**
+	 * Number of periods before start that volStrength reads
+	 * @param period Volume moving average period
+	 * @param periodMult Multiplication factor of max and min period (not read)
+	 * @return Required lookback
+	 */
+	public static int lookback(int period, int periodMult) {
+		return period - 1;
+	}
+
+
 	////////////////////////////////////////////////////////////////////////////////////////////////
 	// Testing
 	////////////////////////////////////////////////////////////////////////////////////////////////
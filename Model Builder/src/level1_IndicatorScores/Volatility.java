@@ -45,6 +45,21 @@ public class Volatility {
 	}
 	
 	
+	//////////////////////////////////////////////////////////////////////////////////////////////////////////////
+	// Lookback
+	//////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	/**
+	 * Number of periods before start that volatility reads
+	 * @param period Volatility moving average period
+	 * @return Required lookback
+	 */
+	public static int lookback(int period) {
+		return period;
+	}
+
+
 	//////////////////////////////////////////////////////////////////////////////////////////////////////////////
 	// Helper Method
 	//////////////////////////////////////////////////////////////////////////////////////////////////////////////
@@ -3,6 +3,7 @@ package level2_ProfileSelection;
 import java.util.ArrayList;
 
 import level0_TechnicalData.TechnicalData;
+import level0_TechnicalData.TechnicalDataRegistry;
 import model.Read;
 import model.Variables;
 import model.Write;
@@ -72,7 +73,7 @@ public class ProfileSelection extends Thread {
 		ArrayList<Double> sortedList = new ArrayList<Double>();					// ArrayList to store moving average score calculations
 		ArrayList<Double> unsortedList = new ArrayList<Double>();				// ArrayList to store moving average scores in unsorted order
 
-		TechnicalData data = new TechnicalData(symbol);							// Technical Analysis data of ETF symbol
+		TechnicalData data = TechnicalDataRegistry.get(symbol);					// Technical Analysis data of ETF symbol
 
 		int indexStart = data.getIndexByTimeStamp(start);						// Index in TechnicalData of start
 		int indexEnd = data.getIndexByTimeStamp(end);							// Index in TechnicalData of end
@@ -2,6 +2,7 @@ package level3_ThresholdAbstraction;
 
 import java.util.ArrayList;
 import level0_TechnicalData.TechnicalData;
+import level0_TechnicalData.TechnicalDataRegistry;
 import level1_IndicatorScores.IndicatorScores;
 import level2_ProfileSelection.ProfileSelection;
 import model.Model;
@@ -255,7 +256,7 @@ public class ThresholdAbstraction extends Thread {
 			int profile;				// Profile variable at index (0, 1, or 2)
 
 			// Level 0: Data
-			TechnicalData data = new TechnicalData(symbol);
+			TechnicalData data = TechnicalDataRegistry.get(symbol);
 			int startIndex = data.getIndexByTimeStamp(start);
 			int endIndex = data.getIndexByTimeStamp(end);
 
@@ -0,0 +1,467 @@
+package model;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import level0_TechnicalData.BarFile;
+import level0_TechnicalData.SessionIndex;
+import level0_TechnicalData.TechnicalData;
+import level0_TechnicalData.TimeStamp;
+
+/**
+ * Metadata of every ETFData symbol and every written series (e.g. Level 1 indicator scores),
+ * recorded when the data is written so consistency checks and run planning can look it up
+ * instead of loading the data.
+ *
+ * An entry is only returned while the file it describes has not been modified since the entry
+ * was recorded (ETFData/[symbol].txt, or the bar file if there is no text file).  Callers fall
+ * back to loading the data when no entry is returned.
+ *
+ * Entries are kept in two journals (ETFData/catalog.csv and [Training]/catalog.csv).  Each
+ * update appends one line, later lines replace earlier ones, and a journal is rewritten with only
+ * its current entries when it is loaded with too many replaced lines.
+ * 	Symbol lines: S,[Symbol],[Rows],[First Time Stamp],[Last Time Stamp],[Days],[Short Days],
+ * 				  [Checksum],[Modified],[Year]:[Rows];[Year]:[Rows]...
+ * 	Series lines: L,[Length],[Min],[Max],[Modified],[Path]
+ *
+ * @author Ryan Bell
+ */
+public final class Catalog {
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Class Variables
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	public static final String FILE_NAME = "catalog.csv";			// Journal file in each folder
+
+	private static final String SYMBOL_JOURNAL = Variables.ETFDATA + FILE_NAME;
+	private static final String SERIES_JOURNAL = Variables.TRAINING + FILE_NAME;
+
+	private static Map<String, Symbol> mSymbols;		// Symbol -> latest entry (loaded on first use)
+	private static Map<String, Series> mSeries;			// Series path -> latest entry (loaded on first use)
+
+
+	private Catalog() { }
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Symbol Entries
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	/** Metadata of one symbol's ETFData */
+	public static final class Symbol {
+
+		private final String mSymbol;		// Stock or ETF identifier
+		private final int mRows;			// Number of periods
+		private final String mFirst;		// Time stamp of first period (YYYYMMDDhhmm)
+		private final String mLast;			// Time stamp of last period (YYYYMMDDhhmm)
+		private final int mDays;			// Number of trading days
+		private final int mShortDays;		// Trading days with fewer than Variables.PIM periods
+		private final long mChecksum;		// CRC32 of every column
+		private final long mModified;		// Last modified time of source file when recorded
+		private final int[] mYears;			// Years with data (ascending)
+		private final int[] mYearRows;		// Periods in each year
+
+
+		private Symbol(String symbol, int rows, String first, String last, int days, int shortDays,
+				long checksum, long modified, int[] years, int[] yearRows) {
+			mSymbol = symbol;
+			mRows = rows;
+			mFirst = first;
+			mLast = last;
+			mDays = days;
+			mShortDays = shortDays;
+			mChecksum = checksum;
+			mModified = modified;
+			mYears = years;
+			mYearRows = yearRows;
+		}
+
+
+		public String symbol()      { return mSymbol;    }
+		public int rows()           { return mRows;      }
+		public String first()       { return mFirst;     }
+		public String last()        { return mLast;      }
+		public int days()           { return mDays;      }
+		public int shortDays()      { return mShortDays; }
+		public long checksum()      { return mChecksum;  }
+		public long modified()      { return mModified;  }
+
+
+		/**
+		 * Same result as TechnicalData.getIndexByTimeStamp(year) without loading the data
+		 * @param year Year in YYYY format
+		 * @return Index of first period in year (-1 if there is no data in year)
+		 */
+		public int indexOfYear(int year) {
+
+			int index = 0;
+
+			for (int y = 0; y < mYears.length; y++) {
+				if (mYears[y] == year) return index;
+				index += mYearRows[y];
+			}
+
+			return -1;
+		}
+
+
+		private String toLine() {
+
+			StringBuilder years = new StringBuilder();
+			for (int y = 0; y < mYears.length; y++)
+				years.append((y > 0 ? ";" : "") + mYears[y] + ":" + mYearRows[y]);
+
+			return "S," + mSymbol + "," + mRows + "," + mFirst + "," + mLast + "," + mDays + "," + mShortDays + "," +
+					Long.toHexString(mChecksum) + "," + mModified + "," + years;
+		}
+
+
+		private static Symbol parse(String[] values) {
+
+			String[] years = values.length > 9 && !values[9].isEmpty() ? values[9].split(";") : new String[0];
+			int[] year = new int[years.length];
+			int[] rows = new int[years.length];
+
+			for (int y = 0; y < years.length; y++) {
+				year[y] = Integer.parseInt(years[y].substring(0, years[y].indexOf(':')));
+				rows[y] = Integer.parseInt(years[y].substring(years[y].indexOf(':') + 1));
+			}
+
+			return new Symbol(values[1], Integer.parseInt(values[2]), values[3], values[4], Integer.parseInt(values[5]),
+					Integer.parseInt(values[6]), Long.parseLong(values[7], 16), Long.parseLong(values[8]), year, rows);
+		}
+	}
+
+
+	/**
+	 * Look up symbol's metadata
+	 * @param symbol Stock or ETF identifier
+	 * @return Entry recorded for symbol (null if there is none or the data has changed since)
+	 */
+	public static synchronized Symbol symbol(String symbol) {
+
+		Symbol entry = symbols().get(symbol);
+		return entry != null && entry.mModified == sourceModified(symbol) ? entry : null;
+	}
+
+
+	/**
+	 * Record metadata of symbol's data (called whenever the data is written or fully loaded)
+	 * @param data Full data of symbol
+	 * @return Recorded entry
+	 */
+	public static Symbol putSymbol(TechnicalData data) {
+
+		int rows = data.size();
+
+
+		// 1. Days and periods per year ////////////////////////////////////////////////////////////
+
+
+		SessionIndex session = data.sessionIndex();
+		int shortDays = 0;
+
+		for (int day = 0; day < session.days(); day++)
+			if (session.periodsInDay(day) < Variables.PIM) shortDays++;
+
+		ArrayList<Integer> years = new ArrayList<Integer>();
+		ArrayList<Integer> yearRows = new ArrayList<Integer>();
+
+		for (int i = 0; i < rows; i++) {
+
+			int year = (int) (TimeStamp.toKey(data.time(i)) / 100000000L);
+
+			if (years.isEmpty() || years.get(years.size() - 1) != year) {
+				years.add(year);
+				yearRows.add(0);
+			}
+
+			yearRows.set(yearRows.size() - 1, yearRows.get(yearRows.size() - 1) + 1);
+		}
+
+
+		// 2. Checksum of columns //////////////////////////////////////////////////////////////////
+
+
+		CRC32 crc = new CRC32();
+		ByteBuffer row = ByteBuffer.allocate(BarFile.ROW_BYTES);
+
+		for (int i = 0; i < rows; i++) {
+			row.clear();
+			row.putLong(data.time(i)).putDouble(data.open(i)).putDouble(data.high(i))
+					.putDouble(data.low(i)).putDouble(data.close(i)).putLong(data.volumes()[i]);
+			crc.update(row.array(), 0, BarFile.ROW_BYTES);
+		}
+
+
+		// 3. Record entry /////////////////////////////////////////////////////////////////////////
+
+
+		Symbol entry = new Symbol(data.symbol(), rows,
+				rows > 0 ? data.timeStamp(0) : "", rows > 0 ? data.timeStamp(rows - 1) : "",
+				session.days(), shortDays, crc.getValue(), sourceModified(data.symbol()),
+				toArray(years), toArray(yearRows));
+
+		synchronized (Catalog.class) {
+			symbols().put(entry.mSymbol, entry);
+			append(SYMBOL_JOURNAL, entry.toLine());
+		}
+
+		return entry;
+	}
+
+
+	/** @return Last modified time of the file symbol's data is loaded from (0 if there is none) */
+	private static long sourceModified(String symbol) {
+
+		File text = new File(Variables.ETFDATA + symbol + ".txt");
+		return text.exists() ? text.lastModified() : new File(BarFile.path(symbol)).lastModified();
+	}
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Series Entries
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	/** Length and value range of one written series */
+	public static final class Series {
+
+		/** Entry of empty or erased file */
+		public static final Series EMPTY = new Series(0, Double.NaN, Double.NaN, 0);
+
+		private final int mLength;			// Number of values
+		private final double mMin;			// Lowest value (NaN if empty)
+		private final double mMax;			// Highest value (NaN if empty)
+		private final long mModified;		// Last modified time of file when recorded
+
+
+		private Series(int length, double min, double max, long modified) {
+			mLength = length;
+			mMin = min;
+			mMax = max;
+			mModified = modified;
+		}
+
+
+		public int length()      { return mLength; }
+		public double min()      { return mMin;    }
+		public double max()      { return mMax;    }
+
+
+		/** @return Entry after values are appended (range found the same way as getIndicatorRange) */
+		private Series append(List<Double> values, long modified) {
+
+			if (values.isEmpty()) return new Series(mLength, mMin, mMax, modified);
+
+			double max = mLength == 0 ? values.get(0) : mMax;
+			double min = mLength == 0 ? values.get(0) : mMin;
+
+			for (Double value : values) {
+				if (max < value) max = value;
+				if (min > value) min = value;
+			}
+
+			return new Series(mLength + values.size(), min, max, modified);
+		}
+
+
+		private String toLine(String path) {
+			return "L," + mLength + "," + mMin + "," + mMax + "," + mModified + "," + path;
+		}
+
+
+		private static Series parse(String[] values) {
+			return new Series(Integer.parseInt(values[1]), Double.parseDouble(values[2]),
+					Double.parseDouble(values[3]), Long.parseLong(values[4]));
+		}
+	}
+
+
+	/**
+	 * Look up series metadata
+	 * @param path Location of series file
+	 * @return Entry recorded for file (null if there is none or the file has changed since)
+	 */
+	public static synchronized Series series(String path) {
+
+		Series entry = series().get(path);
+		return entry != null && entry.mModified == new File(path).lastModified() ? entry : null;
+	}
+
+
+	/**
+	 * Entry a series will be appended to (call before writing)
+	 * @param path Location of series file
+	 * @param erase True if file is erased before writing
+	 * @return Current entry (EMPTY if file is erased or empty, null if file is not cataloged)
+	 */
+	public static Series seriesBeforeWrite(String path, boolean erase) {
+
+		File file = new File(path);
+		if (erase || file.length() == 0) return Series.EMPTY;
+
+		return series(path);
+	}
+
+
+	/**
+	 * Record values written to series file (call after writing)
+	 * @param path Location of series file
+	 * @param before Entry returned by seriesBeforeWrite (null removes any entry)
+	 * @param values Values written to file
+	 */
+	public static synchronized void putSeries(String path, Series before, List<Double> values) {
+
+		if (before == null) {
+			removeSeries(path);
+			return;
+		}
+
+		Series entry = before.append(values, new File(path).lastModified());
+
+		series().put(path, entry);
+		append(SERIES_JOURNAL, entry.toLine(path));
+	}
+
+
+	/** Forget series file (called when a file is written without being cataloged) */
+	public static synchronized void removeSeries(String path) {
+
+		if (series().remove(path) != null)
+			append(SERIES_JOURNAL, Series.EMPTY.toLine(path));
+	}
+
+
+	////////////////////////////////////////////////////////////////////////////////////////////////
+	// Journals
+	////////////////////////////////////////////////////////////////////////////////////////////////
+
+
+	private static Map<String, Symbol> symbols() {
+
+		if (mSymbols == null) {
+
+			mSymbols = new LinkedHashMap<String, Symbol>();
+			int lines = 0;
+
+			for (String[] values : readJournal(SYMBOL_JOURNAL)) {
+				if (!values[0].equals("S")) continue;
+				mSymbols.put(values[1], Symbol.parse(values));
+				lines++;
+			}
+
+			if (isCompactable(lines, mSymbols.size())) {
+				StringBuilder str = new StringBuilder();
+				for (Symbol entry : mSymbols.values()) str.append(entry.toLine() + "\r\n");
+				rewrite(SYMBOL_JOURNAL, str.toString());
+			}
+		}
+
+		return mSymbols;
+	}
+
+
+	private static Map<String, Series> series() {
+
+		if (mSeries == null) {
+
+			mSeries = new LinkedHashMap<String, Series>();
+			int lines = 0;
+
+			for (String[] values : readJournal(SERIES_JOURNAL)) {
+
+				if (!values[0].equals("L")) continue;
+
+				// Zero modified time marks a removed entry
+				Series entry = Series.parse(values);
+				if (entry.mModified == 0) mSeries.remove(values[5]);
+				else mSeries.put(values[5], entry);
+				lines++;
+			}
+
+			if (isCompactable(lines, mSeries.size())) {
+				StringBuilder str = new StringBuilder();
+				for (Map.Entry<String, Series> entry : mSeries.entrySet()) str.append(entry.getValue().toLine(entry.getKey()) + "\r\n");
+				rewrite(SERIES_JOURNAL, str.toString());
+			}
+		}
+
+		return mSeries;
+	}
+
+
+	/** @return True if most lines of journal have been replaced */
+	private static boolean isCompactable(int lines, int entries) {
+		return lines > 2 * entries + 100;
+	}
+
+
+	/** @return Comma separated values of each journal line (empty if journal does not exist) */
+	private static ArrayList<String[]> readJournal(String path) {
+
+		ArrayList<String[]> lines = new ArrayList<String[]>();
+		if (!new File(path).exists()) return lines;
+
+		try (BufferedReader reader = new BufferedReader(new FileReader(path))) {
+
+			String line;
+
+			while ((line = reader.readLine()) != null) {
+				if (line.isEmpty()) continue;
+				lines.add(line.split(",", 6 + (line.startsWith("S") ? 4 : 0)));
+			}
+
+		} catch (IOException | RuntimeException e) {
+			// Journal is only a cache, so a damaged journal is started over
+			System.out.println("Catalog: " + path + " could not be read (" + e + ")");
+			lines.clear();
+		}
+
+		return lines;
+	}
+
+
+	private static void append(String path, String line) {
+
+		new File(path).getParentFile().mkdirs();
+
+		try (BufferedWriter writer = new BufferedWriter(new FileWriter(path, true))) {
+			writer.write(line + "\r\n");
+		} catch (IOException e) {
+			System.out.println("Catalog: " + path + " could not be written (" + e + ")");
+		}
+	}
+
+
+	private static void rewrite(String path, String lines) {
+
+		try (BufferedWriter writer = new BufferedWriter(new FileWriter(path))) {
+			writer.write(lines);
+		} catch (IOException e) {
+			System.out.println("Catalog: " + path + " could not be written (" + e + ")");
+		}
+	}
+
+
+	private static int[] toArray(ArrayList<Integer> list) {
+
+		int[] array = new int[list.size()];
+		for (int i = 0; i < array.length; i++) array[i] = list.get(i);
+		return array;
+	}
+}
@@ -56,6 +56,12 @@ public class Variables {
 	public static final int NP = 5;							// Node Period: Length in minutes of each node in TechnicalData list
 	public static final int PIM = 77;						// Period Index Manipulator (How many periods are in 1 average trading day)
 
+	// Heap budget for cached TechnicalData, indexes, and views (TechnicalDataRegistry evicts beyond this)
+	public static final long mDataCacheBytes = 1024L * 1024 * 1024;
+
+	// Number of threads reading data files at once (see UniverseLoader)
+	public static final int mLoadingThreads = 4;
+
 	// Number of threads running along best performance
 	public static final int mWorkingThreads = Runtime.getRuntime().availableProcessors();
 
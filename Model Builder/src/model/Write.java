@@ -61,6 +61,9 @@ public class Write {
 
 			} catch(IOException e) {}
 
+			// Only an erased file's metadata is known
+			Catalog.putSeries(directory, erase && data.isEmpty() ? Catalog.Series.EMPTY : null, new ArrayList<Double>());
+
 			// if (erase) System.out.println("Overwrite: " + directory);
 			// else System.out.println("Append: " + directory);
 		
@@ -130,6 +133,8 @@ public class Write {
 
 		} catch(IOException e) {}
 
+		Catalog.removeSeries(directory);
+
 		// if (erase) System.out.println("Overwrite: " + directory);
 		// else System.out.println("Append: " + directory);
 	}
@@ -147,6 +152,7 @@ public class Write {
 
 		// Get file pointer.  Erase if parameter requires
 
+		Catalog.Series before = Catalog.seriesBeforeWrite(directory, erase);
 		File file = eraseFile(directory, erase);
 
 		// Write to File
@@ -159,7 +165,12 @@ public class Write {
 			for (Double value : data) bufferedWriter.write("" + value + ",\r\n");
 			bufferedWriter.close();
 
-		} catch(IOException e) {}
+		} catch(IOException e) {
+			before = null;
+		}
+
+		// Record length and range so they can be looked up without reading file (see Catalog)
+		Catalog.putSeries(directory, before, data);
 
 		// if (erase) System.out.println("Overwrite: " + directory);
 		// else System.out.println("Append: " + directory);